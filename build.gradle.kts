@@ -1,6 +1,8 @@
 plugins {
     id("java-library")
+    id("java-test-fixtures")
     id("com.gradleup.shadow") version "9.3.1"
+    id("me.champeau.jmh") version "0.7.3"
     id("run-hytale")
 }
 
@@ -24,6 +26,50 @@ dependencies {
     // Test dependencies
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.10.0")
+    testImplementation(files("libs/HytaleServer.jar"))
+
+    // Engine stand-ins shared by the tests and benchmarks (src/testFixtures, BenchStandIns)
+    testFixturesImplementation(files("libs/HytaleServer.jar"))
+
+    // Benchmark dependencies (src/jmh); the server API is compileOnly above, so add it here too
+    jmh(files("libs/HytaleServer.jar"))
+    jmh(testFixtures(project))
+}
+
+// Configure benchmarks: ./gradlew jmh (results in build/results/jmh)
+jmh {
+    jmhVersion = "1.37"
+    // Allocation profiling: gc.alloc.rate.norm (bytes/op) next to every score
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+}
+
+// Offline damage-event load simulator (src/jmh, LifestealSimulator); options via --args, e.g.
+// ./gradlew simulateLifesteal --args="--eps 50000 --seconds 60 --record build/fight.csv"
+tasks.register<JavaExec>("simulateLifesteal") {
+    group = "verification"
+    description = "Replays a combat trace through the lifesteal code and reports latency, allocation and GC"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.myplugin.LifestealSimulator")
+}
+
+// Export heal journal segments (LifestealJournal) to CSV, e.g.
+// ./gradlew exportLifestealJournal --args="run/mods/TemplatePlugin/journal --out build/heals.csv"
+tasks.register<JavaExec>("exportLifestealJournal") {
+    group = "application"
+    description = "Writes lifesteal journal segments as CSV"
+    // zstd-jni comes with the server jar
+    classpath = sourceSets["main"].runtimeClasspath + files("libs/HytaleServer.jar")
+    mainClass.set("com.example.myplugin.LifestealJournalExport")
+}
+
+// Check langfiles/ (and the plugin's own src/main/resources/langfiles) and compile them into one
+// binary bundle per locale; malformed or duplicate keys fail the build here instead of at runtime
+val compileLangBundles = tasks.register<CompileLangBundlesTask>("compileLangBundles") {
+    group = "build"
+    description = "Validates .lang files and compiles them into binary bundles"
+    sourceDirs.from("langfiles", "src/main/resources/langfiles")
+    outputDir.set(layout.buildDirectory.dir("generated/langbundles"))
 }
 
 // Configure server testing
@@ -55,6 +101,12 @@ tasks {
         filesMatching("manifest.json") {
             expand(props)
         }
+
+        // Bundled translations ship as compiled bundles only; LangBundles reads them lazily
+        from(compileLangBundles) {
+            into("langfiles")
+        }
+        exclude("langfiles/**/*.lang")
     }
     
     // Configure ShadowJar (bundle dependencies)
@@ -0,0 +1,165 @@
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.File
+
+/**
+ * Compiles langfiles/<locale>/<file>.lang into one binary bundle per locale (<locale>.langbin).
+ *
+ * Every file is checked the way the server parses it; the build fails on lines without '=',
+ * empty or malformed keys (dot-separated [A-Za-z0-9_-] segments), empty values, a trailing '\'
+ * on the last line and duplicate keys, including the same key in two source directories.
+ *
+ * Bundle layout (big-endian), read by LangBundleFile in the plugin:
+ *   int magic "LNGB", int version, int entryCount
+ *   entryCount x { int keyOffset, int valueOffset }, sorted by key
+ *   string table: { int byteLength, UTF-8 bytes }, each distinct string once
+ * Keys are stored as "<file>.<key>", the form the plugin looks up.
+ *
+ * Usage (build.gradle.kts):
+ *   val compileLangBundles = tasks.register<CompileLangBundlesTask>("compileLangBundles") {
+ *       sourceDirs.from("langfiles")
+ *       outputDir.set(layout.buildDirectory.dir("generated/langbundles"))
+ *   }
+ */
+open class CompileLangBundlesTask : DefaultTask() {
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    val sourceDirs = project.objects.fileCollection()
+
+    @OutputDirectory
+    val outputDir = project.objects.directoryProperty()
+
+    @TaskAction
+    fun compile() {
+        val errors = mutableListOf<String>()
+        val locales = sortedMapOf<String, MutableMap<String, String>>() // locale -> full key -> value
+        val origins = mutableMapOf<String, String>() // "locale/full key" -> "file:line"
+
+        for (dir in sourceDirs.files) {
+            if (!dir.isDirectory) continue
+            val localeDirs = dir.listFiles { f -> f.isDirectory }?.sortedBy { it.name } ?: continue
+            for (localeDir in localeDirs) {
+                val entries = locales.getOrPut(localeDir.name) { mutableMapOf() }
+                val files = localeDir.listFiles { f -> f.isFile && f.name.endsWith(".lang") }?.sortedBy { it.name } ?: continue
+                for (file in files) {
+                    val prefix = file.name.removeSuffix(".lang")
+                    parse(file, errors) { key, value, line ->
+                        val fullKey = "$prefix.$key"
+                        val where = "${file.path}:$line"
+                        val first = origins.putIfAbsent("${localeDir.name}/$fullKey", where)
+                        if (first != null) {
+                            errors += "$where: duplicate key '$key' (first defined at $first)"
+                        } else {
+                            entries[fullKey] = value
+                        }
+                    }
+                }
+            }
+        }
+        if (errors.isNotEmpty()) {
+            throw GradleException("Invalid .lang files (${errors.size} errors):\n" + errors.joinToString("\n"))
+        }
+
+        val out = outputDir.get().asFile.apply { mkdirs() }
+        out.listFiles { f -> f.name.endsWith(".langbin") }?.forEach { it.delete() }
+        for ((locale, entries) in locales) {
+            val bytes = encode(entries)
+            File(out, "$locale.langbin").writeBytes(bytes)
+            logger.info("lang bundle $locale: ${entries.size} keys, ${bytes.size} bytes")
+        }
+    }
+
+    // Same rules as the server's LangFileParser (and LangBundles.parse in the plugin)
+    private fun parse(file: File, errors: MutableList<String>, onEntry: (String, String, Int) -> Unit) {
+        var key: String? = null
+        var keyLine = 0
+        val value = StringBuilder()
+        var lineNo = 0
+        file.forEachLine(Charsets.UTF_8) { raw ->
+            lineNo++
+            val line = raw.trim()
+            if (line.isEmpty() || line[0] == '#') return@forEachLine
+
+            val pending = key
+            if (pending != null) {
+                val more = line.endsWith('\\')
+                value.append((if (more) line.substring(0, line.length - 1) else line).trim())
+                if (!more) {
+                    onEntry(pending, escape(value.toString()), keyLine)
+                    key = null
+                }
+                return@forEachLine
+            }
+
+            val eq = line.indexOf('=')
+            if (eq < 0) {
+                errors += "${file.path}:$lineNo: missing '=' in key-value line"
+                return@forEachLine
+            }
+            val k = line.substring(0, eq).trim()
+            val first = line.substring(eq + 1).trim()
+            when {
+                !KEY.matches(k) -> errors += "${file.path}:$lineNo: empty or malformed key '$k'"
+                first.isEmpty() -> errors += "${file.path}:$lineNo: empty value for '$k'"
+                first.endsWith('\\') -> {
+                    value.setLength(0)
+                    value.append(first, 0, first.length - 1)
+                    key = k
+                    keyLine = lineNo
+                }
+                else -> onEntry(k, escape(literal(first)), lineNo)
+            }
+        }
+        if (key != null) errors += "${file.path}:$keyLine: value of '$key' never ends (trailing '\\' on the last line)"
+    }
+
+    private fun literal(s: String): String =
+        if (s.length >= 2 && s.first() == '"' && s.last() == '"') s.substring(1, s.length - 1) else s
+
+    private fun escape(s: String): String = s.replace("\\n", "\n").replace("\\t", "\t")
+
+    private fun encode(entries: Map<String, String>): ByteArray {
+        val sorted = entries.entries.sortedBy { it.key }
+        val tableBytes = HEADER_BYTES + ENTRY_BYTES * sorted.size
+        val strings = ByteArrayOutputStream()
+        val stringData = DataOutputStream(strings)
+        val offsets = HashMap<String, Int>()
+        fun offsetOf(s: String): Int = offsets.getOrPut(s) {
+            val offset = tableBytes + strings.size()
+            val bytes = s.toByteArray(Charsets.UTF_8)
+            stringData.writeInt(bytes.size)
+            stringData.write(bytes)
+            offset
+        }
+
+        val table = ByteArrayOutputStream(tableBytes)
+        DataOutputStream(table).apply {
+            writeInt(MAGIC)
+            writeInt(VERSION)
+            writeInt(sorted.size)
+            for ((k, v) in sorted) {
+                writeInt(offsetOf(k))
+                writeInt(offsetOf(v))
+            }
+        }
+        return table.toByteArray() + strings.toByteArray()
+    }
+
+    companion object {
+        // Keep in sync with LangBundleFile
+        const val MAGIC = 0x4C4E4742 // "LNGB"
+        const val VERSION = 1
+        const val HEADER_BYTES = 12
+        const val ENTRY_BYTES = 8
+
+        private val KEY = Regex("[A-Za-z0-9_-]+(\\.[A-Za-z0-9_-]+)*")
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AssetLifestealLoader.populateFromAssets without the server asset map: the same extract + publish
+ * steps run over stand-in items (half of them with a getLifesteal() getter).
+ *
+ * - extract: reflective extraction only (plans are cached after the first pass)
+ * - populate: extract + diff against the previous scan + registry / index publish
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssetLoaderBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int items;
+
+    private List<Item> assets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        assets = BenchStandIns.items(items);
+    }
+
+    @Benchmark
+    public Double[] extract() {
+        return AssetLifestealLoader.extractAll(assets);
+    }
+
+    @Benchmark
+    public int populate() {
+        return AssetLifestealLoader.replaceScan(assets, AssetLifestealLoader.extractAll(assets));
+    }
+}
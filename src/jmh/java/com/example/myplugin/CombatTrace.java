@@ -0,0 +1,200 @@
+package com.example.myplugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A combat trace for LifestealSimulator: time-ordered events stored in parallel primitive arrays, so
+ * replaying a trace allocates nothing per event.
+ *
+ * Text form, one event per line ('#' starts a comment):
+ *   time_us,kind,attacker,item,value,targets
+ *
+ *   hit      attacker deals value damage with its held item
+ *   aoe      attacker deals value damage to each of targets victims at once (one damage event each)
+ *   env      environmental damage of value (no attacker; handled by LifestealOnDamage's early exits)
+ *   equip    attacker switches its held item to item (-1 = empty hand)
+ *   reload   item assets are rescanned (AssetLifestealLoader), as /reloadlifesteal does
+ *   override item gets lifesteal value from the overrides file (value < 0 drops the override)
+ *
+ * Unused columns may be left empty. Items are indexes into BenchStandIns.items(...).
+ */
+final class CombatTrace {
+    static final byte HIT = 0;
+    static final byte AOE = 1;
+    static final byte ENV = 2;
+    static final byte EQUIP = 3;
+    static final byte RELOAD = 4;
+    static final byte OVERRIDE = 5;
+    private static final String[] KIND_NAMES = { "hit", "aoe", "env", "equip", "reload", "override" };
+
+    long[] timeMicros = new long[1024];
+    byte[] kind = new byte[1024];
+    int[] attacker = new int[1024];
+    int[] item = new int[1024];
+    float[] value = new float[1024];
+    int[] targets = new int[1024];
+    int size;
+
+    int attackers; // highest attacker index + 1
+    int items;     // highest item index + 1
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Damage events in the trace (an aoe counts once per target).
+     */
+    long damageEvents() {
+        long n = 0;
+        for (int i = 0; i < size; i++) {
+            if (kind[i] == HIT || kind[i] == ENV) n++;
+            else if (kind[i] == AOE) n += targets[i];
+        }
+        return n;
+    }
+
+    long durationMicros() {
+        return size == 0 ? 0 : timeMicros[size - 1];
+    }
+
+    void add(long time, byte k, int a, int it, float v, int t) {
+        if (size > 0 && time < timeMicros[size - 1]) throw new IllegalArgumentException("events must be in time order (line " + (size + 1) + ")");
+        if (size == timeMicros.length) grow();
+        timeMicros[size] = time;
+        kind[size] = k;
+        attacker[size] = a;
+        item[size] = it;
+        value[size] = v;
+        targets[size] = t;
+        size++;
+        if (a >= attackers) attackers = a + 1;
+        if (it >= items) items = it + 1;
+    }
+
+    /**
+     * Shape of a generated fight.
+     */
+    static final class Mix {
+        int attackers = 200;
+        int items = 2000;
+        double eventsPerSecond = 20_000;
+        double seconds = 30;
+        double aoeShare = 0.05;       // share of attacks that are AoE bursts
+        int aoeTargets = 8;
+        double envShare = 0.1;        // share of damage events without an attacking entity
+        double equipPerAttackerPerSecond = 0.2;
+        double reloadEverySeconds = 0; // 0 = never
+        double overrideEverySeconds = 0;
+        long seed = 42;
+    }
+
+    /**
+     * A random fight: attacks arrive as a Poisson process at about mix.eventsPerSecond damage events,
+     * attackers are picked with a skew (a few players land most hits) and start with a random item.
+     */
+    static CombatTrace generate(Mix mix) {
+        SplittableRandom rnd = new SplittableRandom(mix.seed);
+        CombatTrace trace = new CombatTrace();
+        for (int a = 0; a < mix.attackers; a++) trace.add(0, EQUIP, a, rnd.nextInt(mix.items), 0f, 0);
+
+        double eventsPerAttack = 1 + mix.aoeShare * (mix.aoeTargets - 1);
+        double attacksPerMicro = mix.eventsPerSecond / eventsPerAttack / 1e6;
+        double equipsPerMicro = mix.equipPerAttackerPerSecond * mix.attackers / 1e6;
+        double end = mix.seconds * 1e6;
+        double nextReload = mix.reloadEverySeconds > 0 ? mix.reloadEverySeconds * 1e6 : Double.MAX_VALUE;
+        double nextOverride = mix.overrideEverySeconds > 0 ? mix.overrideEverySeconds * 1e6 : Double.MAX_VALUE;
+        double t = 0;
+        while (true) {
+            t += -Math.log(1 - rnd.nextDouble()) / (attacksPerMicro + equipsPerMicro);
+            if (t >= end) break;
+            while (nextReload <= t) {
+                trace.add((long) nextReload, RELOAD, 0, 0, 0f, 0);
+                nextReload += mix.reloadEverySeconds * 1e6;
+            }
+            while (nextOverride <= t) {
+                float v = rnd.nextInt(4) == 0 ? -1f : (float) (rnd.nextInt(30) / 100.0);
+                trace.add((long) nextOverride, OVERRIDE, 0, rnd.nextInt(mix.items), v, 0);
+                nextOverride += mix.overrideEverySeconds * 1e6;
+            }
+            long time = (long) t;
+            int a = skewed(rnd, mix.attackers);
+            if (rnd.nextDouble() * (attacksPerMicro + equipsPerMicro) < equipsPerMicro) {
+                trace.add(time, EQUIP, a, rnd.nextInt(10) == 0 ? -1 : rnd.nextInt(mix.items), 0f, 0);
+            } else if (rnd.nextDouble() < mix.aoeShare) {
+                trace.add(time, AOE, a, 0, 4f + rnd.nextInt(12), mix.aoeTargets);
+            } else if (rnd.nextDouble() < mix.envShare) {
+                trace.add(time, ENV, 0, 0, 1f + rnd.nextInt(6), 0);
+            } else {
+                trace.add(time, HIT, a, 0, 5f + rnd.nextInt(20), 0);
+            }
+        }
+        trace.items = Math.max(trace.items, mix.items);
+        return trace;
+    }
+
+    // roughly Zipf-like: attacker 0 is the busiest
+    private static int skewed(SplittableRandom rnd, int n) {
+        double u = rnd.nextDouble();
+        return Math.min(n - 1, (int) (n * u * u));
+    }
+
+    static CombatTrace read(Path file) throws IOException {
+        CombatTrace trace = new CombatTrace();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                String[] f = Arrays.copyOf(line.split(",", -1), 6);
+                try {
+                    trace.add(Long.parseLong(f[0].trim()), kindOf(f[1].trim()), intOr(f[2], 0), intOr(f[3], 0),
+                            f[4] == null || f[4].isBlank() ? 0f : Float.parseFloat(f[4].trim()), intOr(f[5], 1));
+                } catch (RuntimeException e) {
+                    throw new IOException(file + ":" + lineNo + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return trace;
+    }
+
+    void write(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# time_us,kind,attacker,item,value,targets\n");
+            for (int i = 0; i < size; i++) {
+                out.write(timeMicros[i] + "," + KIND_NAMES[kind[i]] + "," + attacker[i] + "," + item[i] + "," + value[i] + "," + targets[i]);
+                out.newLine();
+            }
+        }
+    }
+
+    private static byte kindOf(String name) {
+        for (byte k = 0; k < KIND_NAMES.length; k++) {
+            if (KIND_NAMES[k].equals(name)) return k;
+        }
+        throw new IllegalArgumentException("unknown event kind '" + name + "'");
+    }
+
+    private static int intOr(String s, int fallback) {
+        return s == null || s.isBlank() ? fallback : Integer.parseInt(s.trim());
+    }
+
+    private void grow() {
+        int n = size * 2;
+        timeMicros = Arrays.copyOf(timeMicros, n);
+        kind = Arrays.copyOf(kind, n);
+        attacker = Arrays.copyOf(attacker, n);
+        item = Arrays.copyOf(item, n);
+        value = Arrays.copyOf(value, n);
+        targets = Arrays.copyOf(targets, n);
+    }
+}
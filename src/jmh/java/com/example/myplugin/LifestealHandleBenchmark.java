@@ -0,0 +1,144 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LifestealOnDamage per-hit cost.
+ *
+ * - early exits run through handle(...) itself (they return before the Store is used)
+ * - cached hits run through applyLifesteal(...) with a current LifestealComponent, i.e. everything
+ *   handle(...) does after the component lookup
+ * - refresh resolves a stand-in attacker's held item into the component (the first hit after an
+ *   equip / inventory change)
+ * - applied hits rotate over ATTACKERS refs so HealBatch sees a realistic number of attackers per tick
+ * - appliedCapped is the same with a HealRateLimiter in front; most of its hits are clipped to 0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LifestealHandleBenchmark {
+    private static final int ATTACKERS = 64;
+
+    private final LifestealSystems.LifestealOnDamage system = new LifestealSystems.LifestealOnDamage();
+
+    private CommandBuffer<EntityStore> commandBuffer;
+    private Damage cancelled;
+    private Damage zeroDamage;
+    private Damage environmental;
+    private Damage invalidRef;
+
+    private Ref<EntityStore>[] refs;
+    private LifestealComponent[] lifestealAttackers;
+    private LifestealComponent plainAttacker;
+    private LifestealComponent emptyHanded;
+    private BenchStandIns.Attacker attacker;
+    private final LifestealComponent scratch = new LifestealComponent();
+    private final HealRateLimiter limiter = new HealRateLimiter();
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        LifestealDebugLog.setEnabled(false);
+        BenchStandIns.LifestealItem dagger = new BenchStandIns.LifestealItem("items/bench_dagger", 0.12);
+        BenchStandIns.BenchItem sword = new BenchStandIns.BenchItem("items/bench_sword", new String[] { "Sword" });
+        LifestealRegistry.setItemLifesteal(dagger.getId(), 0.12);
+        ItemLifestealIndex.refresh();
+        PluginConfig.publish(PluginConfig.current().withHealCap(new HealRateLimiter.Settings(20f, 1000L)));
+
+        cancelled = new Damage(new Damage.EntitySource(BenchStandIns.ref(1)), 0, 10f);
+        cancelled.setCancelled(true);
+        zeroDamage = new Damage(new Damage.EntitySource(BenchStandIns.ref(1)), 0, 0f);
+        environmental = new Damage(new Damage.EnvironmentSource("bench"), 0, 10f);
+        invalidRef = new Damage(new Damage.EntitySource(new Ref<>(BenchStandIns.STORE)), 0, 10f);
+
+        refs = new Ref[ATTACKERS];
+        lifestealAttackers = new LifestealComponent[ATTACKERS];
+        attacker = new BenchStandIns.Attacker(new BenchStandIns.BenchItemStack(dagger));
+        for (int i = 0; i < ATTACKERS; i++) {
+            refs[i] = BenchStandIns.ref(i);
+            lifestealAttackers[i] = resolved(attacker);
+        }
+        plainAttacker = resolved(new BenchStandIns.Attacker(new BenchStandIns.BenchItemStack(sword)));
+        emptyHanded = resolved(new BenchStandIns.Attacker(null));
+    }
+
+    private static LifestealComponent resolved(BenchStandIns.Attacker attacker) {
+        LifestealComponent component = new LifestealComponent();
+        LifestealSystems.LifestealOnDamage.refresh(component, attacker);
+        return component;
+    }
+
+    // a fresh buffer per iteration stands in for a tick; the batch it schedules is dropped with it
+    @Setup(Level.Iteration)
+    public void newTick() {
+        commandBuffer = BenchStandIns.commandBuffer();
+    }
+
+    @Benchmark
+    public void earlyExitCancelled() {
+        system.handle(0, null, null, commandBuffer, cancelled);
+    }
+
+    @Benchmark
+    public void earlyExitZeroDamage() {
+        system.handle(0, null, null, commandBuffer, zeroDamage);
+    }
+
+    @Benchmark
+    public void earlyExitNotEntitySource() {
+        system.handle(0, null, null, commandBuffer, environmental);
+    }
+
+    @Benchmark
+    public void earlyExitInvalidRef() {
+        system.handle(0, null, null, commandBuffer, invalidRef);
+    }
+
+    @Benchmark
+    public void noHeldItem() {
+        LifestealSystems.LifestealOnDamage.applyLifesteal(commandBuffer, refs[0], emptyHanded, 10f, null);
+    }
+
+    @Benchmark
+    public void zeroLifesteal() {
+        LifestealSystems.LifestealOnDamage.applyLifesteal(commandBuffer, refs[0], plainAttacker, 10f, null);
+    }
+
+    @Benchmark
+    public LifestealComponent refresh() {
+        LifestealSystems.LifestealOnDamage.refresh(scratch, attacker);
+        return scratch;
+    }
+
+    @Benchmark
+    public void applied() {
+        int i = next++ & (ATTACKERS - 1);
+        LifestealSystems.LifestealOnDamage.applyLifesteal(commandBuffer, refs[i], lifestealAttackers[i], 10f, null);
+    }
+
+    @Benchmark
+    public void appliedCapped() {
+        int i = next++ & (ATTACKERS - 1);
+        LifestealSystems.LifestealOnDamage.applyLifesteal(commandBuffer, refs[i], lifestealAttackers[i], 10f, limiter);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getLifestealFromItem against registries of 1k / 10k / 100k items.
+ *
+ * - "index": the dense ItemLifestealIndex is current (normal steady state)
+ * - "registry": the index is stale, so lookups go through the LifestealRegistry snapshot
+ * - hit = item with a registered value, miss = item without one (falls through to the
+ *   category / name fallbacks)
+ * Held stacks are drawn at random from the whole registry so the tables do not sit in L1.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LifestealLookupBenchmark {
+    private static final int STACKS = 1024;
+
+    @Param({ "1000", "10000", "100000" })
+    public int items;
+
+    @Param({ "index", "registry" })
+    public String source;
+
+    private ItemStack[] hits;
+    private ItemStack[] misses;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Item> assets = BenchStandIns.items(items);
+        LifestealRegistry.replaceAll(BenchStandIns.registryValues(items));
+        ItemLifestealIndex.publish(ItemLifestealIndex.build(assets));
+        // any registry publish after the index was built makes it stale
+        if (source.equals("registry")) LifestealRegistry.setItemLifesteal("items/bench_stale", 0.0);
+
+        SplittableRandom random = new SplittableRandom(42);
+        hits = new ItemStack[STACKS];
+        misses = new ItemStack[STACKS];
+        for (int i = 0; i < STACKS; i++) {
+            int even = random.nextInt(items / 2) * 2;
+            hits[i] = new BenchStandIns.BenchItemStack(assets.get(even));
+            misses[i] = new BenchStandIns.BenchItemStack(assets.get(even + 1));
+        }
+    }
+
+    @Benchmark
+    public double hit() {
+        return LifestealSystems.LifestealOnDamage.getLifestealFromItem(hits[next++ & (STACKS - 1)]);
+    }
+
+    @Benchmark
+    public double miss() {
+        return LifestealSystems.LifestealOnDamage.getLifestealFromItem(misses[next++ & (STACKS - 1)]);
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offline load simulator: replays a combat trace through the lifesteal code at a fixed rate, without
+ * a server, and reports throughput, per-event latency, allocation and GC pauses.
+ *
+ *   ./gradlew simulateLifesteal --args="--eps 50000 --seconds 60 --reload-every 10"
+ *   ./gradlew simulateLifesteal --args="--trace fight.csv --eps 20000"
+ *
+ * - The world thread runs ticks at --tps. Each tick takes the events scheduled before its end, runs
+ *   them and then drains the tick's HealBatch into stand-in stat maps (what consuming the
+ *   CommandBuffer does on a server). A tick that overruns its budget delays the next one, which
+ *   shows up as schedule lag.
+ * - Environmental damage goes through LifestealOnDamage.handle(...) (early exits). Entity hits run
+ *   what handle(...) does after its Store lookups: the cached LifestealComponent, refresh(...) when it
+ *   is stale and applyLifesteal(...) with the HealRateLimiter, on BenchStandIns entities. The Store
+ *   and EntityUtils lookups themselves need a server and are not part of the measurement.
+ * - reload and override events run AssetLifestealLoader on a background thread, as /reloadlifesteal
+ *   and LifestealOverrides do, so the world thread sees the registry and index being republished
+ *   under it (stale components, registry fallback) while the fight goes on.
+ * - Traces are generated (CombatTrace.Mix options) or read from a file; --record writes the trace
+ *   that was used, so a run can be repeated exactly.
+ * - Allocation is measured per thread (com.sun.management.ThreadMXBean); GC pauses come from the
+ *   collectors' notifications. Measurements start after --warmup seconds of trace time.
+ */
+public final class LifestealSimulator {
+    private final CombatTrace trace;
+    private final Options options;
+
+    private final LifestealSystems.LifestealOnDamage system = new LifestealSystems.LifestealOnDamage();
+    private final List<Item> items;
+    private final ItemStack[] stacks;
+    private final Ref<EntityStore>[] refs;
+    private final SimAttacker[] attackers;
+    private final LifestealComponent[] components;
+    private final float[] health;
+    private final HealRateLimiter limiter = new HealRateLimiter();
+    private final Damage environmental = new Damage(new Damage.EnvironmentSource("simulator"), 0, 1f);
+    private final HealBatch.Sink statMaps = this::heal;
+
+    private final Map<String, Double> overrides = new HashMap<>(); // background thread only
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Simulator-Reload");
+        t.setDaemon(true);
+        backgroundThread = t;
+        return t;
+    });
+    private volatile Thread backgroundThread;
+
+    private final LatencyHistogram service = new LatencyHistogram();
+    private final LatencyHistogram tickTime = new LatencyHistogram();
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private final LatencyHistogram gcPauses = new LatencyHistogram();
+    private long damageEvents;
+    private long ticksOverBudget;
+
+    @SuppressWarnings("unchecked")
+    private LifestealSimulator(CombatTrace trace, Options options) {
+        this.trace = trace;
+        this.options = options;
+        items = BenchStandIns.items(Math.max(trace.items, 1));
+        stacks = new ItemStack[items.size()];
+        for (int i = 0; i < stacks.length; i++) stacks[i] = new BenchStandIns.BenchItemStack(items.get(i));
+        int n = Math.max(trace.attackers, 1);
+        refs = new Ref[n];
+        attackers = new SimAttacker[n];
+        components = new LifestealComponent[n];
+        health = new float[n];
+        for (int a = 0; a < n; a++) {
+            refs[a] = BenchStandIns.ref(a);
+            attackers[a] = new SimAttacker();
+            health[a] = SimAttacker.MAX_HEALTH / 2;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        CombatTrace trace = options.trace != null ? CombatTrace.read(options.trace) : CombatTrace.generate(options.mix);
+        if (options.record != null) {
+            trace.write(options.record);
+            System.out.println("[LifestealSimulator] wrote trace to " + options.record);
+        }
+        new LifestealSimulator(trace, options).run();
+    }
+
+    private void run() throws InterruptedException {
+        LifestealDebugLog.setEnabled(false);
+        AssetLifestealLoader.replaceScan(items, AssetLifestealLoader.extractAll(items));
+        if (options.cap > 0) {
+            PluginConfig.publish(PluginConfig.current().withHealCap(new HealRateLimiter.Settings(options.cap, options.capWindowMs)));
+        }
+        watchGcPauses();
+
+        double traceSeconds = Math.max(trace.durationMicros() / 1e6, 1e-6);
+        double recordedRate = trace.damageEvents() / traceSeconds;
+        double scale = options.eventsPerSecond > 0 ? recordedRate / options.eventsPerSecond : 1.0; // trace time -> wall time
+        long tickNanos = (long) (1e9 / options.tps);
+        long warmupNanos = (long) (options.warmupSeconds * 1e9);
+        System.out.printf("[LifestealSimulator] %d trace events, %d damage events over %.1fs; replaying at %.0f damage events/s, %d TPS, %d attackers, %d items%n",
+                trace.size(), trace.damageEvents(), traceSeconds, recordedRate / scale, options.tps, refs.length, items.size());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long worldThread = Thread.currentThread().threadId();
+        boolean measuring = false;
+        long measureStart = 0, allocStart = 0, bgAllocStart = 0, eventsStart = 0;
+        LatencyHistogram.Snapshot service0 = null, tick0 = null, lag0 = null, gc0 = null;
+        LifestealMetrics.Snapshot metrics0 = null;
+
+        int next = 0;
+        long start = System.nanoTime();
+        for (long tick = 0; next < trace.size(); tick++) {
+            long tickStart = start + tick * tickNanos;
+            long now = waitUntil(tickStart);
+            if (!measuring && now - start >= warmupNanos) {
+                measuring = true;
+                measureStart = now;
+                allocStart = threads.getThreadAllocatedBytes(worldThread);
+                bgAllocStart = backgroundAllocated(threads);
+                eventsStart = damageEvents;
+                service0 = service.snapshot();
+                tick0 = tickTime.snapshot();
+                lag0 = lag.snapshot();
+                gc0 = gcPauses.snapshot();
+                metrics0 = LifestealMetrics.snapshot();
+            }
+            lag.record(now - tickStart);
+
+            CommandBuffer<EntityStore> buffer = BenchStandIns.commandBuffer();
+            long tickEnd = tickStart + tickNanos - start;
+            while (next < trace.size() && (long) (trace.timeMicros[next] * 1000 * scale) < tickEnd) {
+                process(next++, buffer);
+            }
+            HealBatch batch = HealBatch.openFor(buffer);
+            if (batch != null) batch.drain(statMaps);
+
+            long worked = System.nanoTime() - now;
+            tickTime.record(worked);
+            if (measuring && worked > tickNanos) ticksOverBudget++;
+        }
+        long end = System.nanoTime();
+        long bgAllocEnd;
+        try {
+            // runs after any reload still queued; a finished thread no longer reports its allocation
+            bgAllocEnd = background.submit(threads::getCurrentThreadAllocatedBytes).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        background.shutdown();
+
+        if (!measuring) {
+            System.out.println("[LifestealSimulator] trace ended during warmup; nothing measured (lower --warmup)");
+            return;
+        }
+        double seconds = (end - measureStart) / 1e9;
+        long events = damageEvents - eventsStart;
+        long allocated = threads.getThreadAllocatedBytes(worldThread) - allocStart;
+        long bgAllocated = bgAllocEnd - bgAllocStart;
+        LatencyHistogram.Snapshot pauses = gcPauses.snapshot().since(gc0);
+
+        System.out.printf("throughput: %d damage events in %.1fs = %.0f/s%n", events, seconds, events / seconds);
+        System.out.println("per-event latency: " + service.snapshot().since(service0).describe());
+        System.out.println("tick time: " + tickTime.snapshot().since(tick0).describe() + ", " + ticksOverBudget + " over the "
+                + LatencyHistogram.Snapshot.formatNanos(tickNanos) + " budget");
+        System.out.println("schedule lag: " + lag.snapshot().since(lag0).describe());
+        System.out.printf("allocation: world thread %.2f MB/s (%.1f B/event), reload thread %.1f MB total%n",
+                allocated / seconds / 1e6, events == 0 ? 0.0 : (double) allocated / events, bgAllocated / 1e6);
+        System.out.printf("GC pauses: %d, %.1f ms total; %s%n", pauses.getCount(), pauses.getCount() * pauses.getMeanNanos() / 1e6, pauses.describe());
+        for (String line : LifestealMetrics.snapshot().since(metrics0).lines(end - measureStart)) System.out.println(line);
+    }
+
+    private void process(int i, CommandBuffer<EntityStore> buffer) {
+        int a = trace.attacker[i];
+        switch (trace.kind[i]) {
+            case CombatTrace.HIT:
+                hit(buffer, a, trace.value[i]);
+                break;
+            case CombatTrace.AOE:
+                for (int t = 0; t < trace.targets[i]; t++) hit(buffer, a, trace.value[i]);
+                break;
+            case CombatTrace.ENV: {
+                long t0 = System.nanoTime();
+                environmental.setAmount(trace.value[i]);
+                system.handle(0, null, null, buffer, environmental);
+                service.record(System.nanoTime() - t0);
+                damageEvents++;
+                break;
+            }
+            case CombatTrace.EQUIP: {
+                int item = trace.item[i];
+                attackers[a].inventory.active = item < 0 ? null : stacks[item];
+                // InvalidateOnSlotSwitch / onInventoryChange
+                if (components[a] != null) components[a].invalidate();
+                break;
+            }
+            case CombatTrace.RELOAD:
+                background.execute(() -> AssetLifestealLoader.replaceScan(items, AssetLifestealLoader.extractAll(items)));
+                break;
+            case CombatTrace.OVERRIDE: {
+                String id = BenchStandIns.itemId(trace.item[i]);
+                float v = trace.value[i];
+                background.execute(() -> {
+                    if (v < 0) overrides.remove(id);
+                    else overrides.put(id, (double) v);
+                    AssetLifestealLoader.applyOverrides(Map.copyOf(overrides));
+                });
+                break;
+            }
+            default:
+                throw new IllegalStateException("event kind " + trace.kind[i]);
+        }
+    }
+
+    // LifestealOnDamage.handle(...) after the attacker's Store lookups
+    private void hit(CommandBuffer<EntityStore> buffer, int a, float damage) {
+        long t0 = System.nanoTime();
+        LifestealComponent cached = components[a];
+        if (cached == null || !cached.isCurrent()) {
+            if (cached == null) components[a] = cached = new LifestealComponent();
+            LifestealSystems.LifestealOnDamage.refresh(cached, attackers[a]);
+        }
+        HealRateLimiter capped = PluginConfig.current().getHealCap().enabled() ? limiter : null;
+        LifestealSystems.LifestealOnDamage.applyLifesteal(buffer, refs[a], cached, damage, capped);
+        service.record(System.nanoTime() - t0);
+        damageEvents++;
+    }
+
+    // stand-in for EntityStatMap.addStatValue(health, amount) in HealBatch.flush
+    private void heal(Ref<EntityStore> ref, float amount) {
+        int a = ref.getIndex();
+        health[a] = Math.min(SimAttacker.MAX_HEALTH, health[a] + amount);
+        LifestealMetrics.healed(amount);
+    }
+
+    private long backgroundAllocated(com.sun.management.ThreadMXBean threads) {
+        Thread t = backgroundThread;
+        return t == null ? 0L : Math.max(0L, threads.getThreadAllocatedBytes(t.threadId()));
+    }
+
+    // stop-the-world pauses only: concurrent cycles ("... Cycles", "... Concurrent GC") do not stop the world thread
+    private void watchGcPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc.getName().contains("Cycles") || gc.getName().contains("Concurrent")) continue;
+            if (!(gc instanceof NotificationEmitter)) continue;
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                gcPauses.record(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+            }, null, null);
+        }
+    }
+
+    private static long waitUntil(long deadline) {
+        long now;
+        while ((now = System.nanoTime()) < deadline) {
+            long left = deadline - now;
+            if (left > 200_000L) LockSupport.parkNanos(left - 100_000L);
+            else Thread.onSpinWait();
+        }
+        return now;
+    }
+
+    /**
+     * Entity stand-in whose held item the trace can change (HeldItemResolver probes getInventory()).
+     */
+    public static final class SimAttacker {
+        static final float MAX_HEALTH = 100f;
+
+        private final SimInventory inventory = new SimInventory();
+
+        public SimInventory getInventory() {
+            return inventory;
+        }
+    }
+
+    public static final class SimInventory {
+        private ItemStack active;
+
+        public ItemStack getActiveHotbarItem() {
+            return active;
+        }
+    }
+
+    private static final class Options {
+        final CombatTrace.Mix mix = new CombatTrace.Mix();
+        Path trace;
+        Path record;
+        double eventsPerSecond; // 0 = generated: mix rate, recorded: as recorded
+        int tps = 30;
+        double warmupSeconds = 5;
+        float cap;
+        long capWindowMs = 1000;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("--help")) usage(null);
+                if (i + 1 >= args.length) usage("missing value for " + name);
+                String v = args[++i];
+                try {
+                    switch (name) {
+                        case "--trace": o.trace = Path.of(v); break;
+                        case "--record": o.record = Path.of(v); break;
+                        case "--eps": o.eventsPerSecond = Double.parseDouble(v); break;
+                        case "--tps": o.tps = Integer.parseInt(v); break;
+                        case "--warmup": o.warmupSeconds = Double.parseDouble(v); break;
+                        case "--cap": o.cap = Float.parseFloat(v); break;
+                        case "--cap-window-ms": o.capWindowMs = Long.parseLong(v); break;
+                        case "--seconds": o.mix.seconds = Double.parseDouble(v); break;
+                        case "--attackers": o.mix.attackers = Integer.parseInt(v); break;
+                        case "--items": o.mix.items = Integer.parseInt(v); break;
+                        case "--aoe": o.mix.aoeShare = Double.parseDouble(v); break;
+                        case "--aoe-targets": o.mix.aoeTargets = Integer.parseInt(v); break;
+                        case "--env": o.mix.envShare = Double.parseDouble(v); break;
+                        case "--equips": o.mix.equipPerAttackerPerSecond = Double.parseDouble(v); break;
+                        case "--reload-every": o.mix.reloadEverySeconds = Double.parseDouble(v); break;
+                        case "--override-every": o.mix.overrideEverySeconds = Double.parseDouble(v); break;
+                        case "--seed": o.mix.seed = Long.parseLong(v); break;
+                        default: usage("unknown option " + name);
+                    }
+                } catch (NumberFormatException e) {
+                    usage("bad value for " + name + ": " + v);
+                }
+            }
+            if (o.trace == null && o.eventsPerSecond > 0) o.mix.eventsPerSecond = o.eventsPerSecond;
+            if (o.tps <= 0) usage("--tps must be > 0");
+            return o;
+        }
+
+        private static void usage(String error) {
+            if (error != null) System.out.println(error);
+            System.out.println("options: --trace <file> | --seconds --attackers --items --aoe --aoe-targets --env --equips"
+                    + " --reload-every --override-every --seed; --record <file> --eps --tps --warmup --cap --cap-window-ms");
+            System.exit(error == null ? 0 : 2);
+        }
+    }
+}
@@ -2,9 +2,29 @@ package com.example.myplugin;
 
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 /**
  * Scans loaded Item assets and populates LifestealRegistry.
@@ -21,40 +41,446 @@ import java.util.Map;
  *
  * Notes:
  * - This is intentionally resilient: uses reflection and ignores exceptions for maximum compatibility.
- * - To make combat code use these values, ensure your LifestealSystems checks LifestealRegistry.getItemLifesteal(itemId).
+ * - The probing is done once per concrete Item / config class (ExtractionPlan, cached in a ClassValue);
+ *   each item then only invokes the accessors that exist, in the same order as the heuristics above.
+ * - Large asset sets are extracted in parallel on the common fork-join pool. Results are merged in
+ *   asset-map order, so the outcome matches a sequential scan.
+ * - Values are collected first and published to LifestealRegistry as one diff, so combat never sees a half-applied scan.
+ * - Incremental mode (reloadChanged() and the asset-store events wired in MyPlugin) only re-extracts items
+ *   whose asset instance changed and removes deleted ones; unchanged items cost a reference compare.
+ *   Replaced assets patch their slots in ItemLifestealIndex; only added or removed assets rebuild it.
+ * - A full scan extracts outside the lock from a snapshot of the asset map. Ids that incremental
+ *   changes touched after that snapshot keep their newer state, and a scan that finishes after a
+ *   later-started one is dropped.
+ * - With an index file configured, loadFromIndexOrAssets() reads values from the persisted LifestealIndexFile
+ *   when its fingerprint matches the asset set, so warm starts skip reflection entirely.
+ * - LifestealOverrides values sit on top of the scanned ones: scans never overwrite an overridden id, and
+ *   removing an override restores the scanned value. The index file only ever holds scanned values.
  */
 public final class AssetLifestealLoader {
+    // Below this many items the fork-join overhead is not worth it.
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private static final String[] ITEM_GETTERS = { "getLifesteal", "getLifeSteal", "getLifestealValue", "lifesteal" };
+    private static final String[] CONFIG_GETTERS = { "getLifesteal", "getLifeSteal", "lifesteal" };
+    private static final String[] CONFIG_FIELDS = { "Lifesteal", "lifesteal", "lifeSteal" };
+    private static final String[] MAP_KEYS = { "Lifesteal", "lifesteal", "lifeSteal" };
+
+    private static final ClassValue<ExtractionPlan> ITEM_PLANS = new ClassValue<>() {
+        @Override
+        protected ExtractionPlan computeValue(Class<?> type) {
+            return ExtractionPlan.forItemClass(type);
+        }
+    };
+
+    // config class -> getters then fields, in heuristic order
+    private static final ClassValue<MethodHandle[]> CONFIG_PLANS = new ClassValue<>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            MethodHandle[] getters = namedGetters(type, CONFIG_GETTERS);
+            MethodHandle[] fields = namedFields(type, CONFIG_FIELDS);
+            MethodHandle[] all = new MethodHandle[getters.length + fields.length];
+            System.arraycopy(getters, 0, all, 0, getters.length);
+            System.arraycopy(fields, 0, all, getters.length, fields.length);
+            return ReflectiveAccessors.trim(all, all.length);
+        }
+    };
+
+    // Result of the last scan, guarded by STATE_LOCK. An item's fingerprint is its asset instance:
+    // the asset store builds a new Item whenever the asset's JSON changes, so an identical
+    // reference means nothing relevant to lifesteal changed.
+    private static final Object STATE_LOCK = new Object();
+    private static final Map<String, Item> scannedItems = new LinkedHashMap<>();
+    private static final Map<String, Double> scannedValues = new HashMap<>();
+    // LifestealOverrides in effect; these ids keep their override value whatever the assets say
+    private static final Map<String, Double> overrides = new HashMap<>();
+    // set when incremental reloads changed scannedValues since the index file was written
+    private static boolean indexDirty;
+    // Bumped by every incremental change. changedAt: id -> version of its last incremental add / change /
+    // remove, kept until no full scan can have started before it. lastScanVersion: version the newest
+    // applied full scan started at.
+    private static long changeVersion;
+    private static final Map<String, Long> changedAt = new HashMap<>();
+    private static long lastScanVersion;
+    private static volatile Path indexFile;
+
+    private static final ExecutorService RELOAD_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Lifesteal-Reload");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final AtomicReference<CompletableFuture<ReloadResult>> PENDING_RELOAD = new AtomicReference<>();
+
     private AssetLifestealLoader() {}
 
-    public static void populateFromAssets() {
+    /**
+     * Re-read LifestealRules and LifestealOverrides, then run populateFromAssets() on the loader thread instead of the caller's (world) thread.
+     * While a reload is queued or running, further calls get the same future instead of starting another scan.
+     */
+    @Nonnull
+    public static CompletableFuture<ReloadResult> reloadAsync() {
+        CompletableFuture<ReloadResult> mine = new CompletableFuture<>();
+        CompletableFuture<ReloadResult> inFlight = PENDING_RELOAD.compareAndExchange(null, mine);
+        if (inFlight != null) return inFlight;
         try {
-            Object assetMapObj = Item.getAssetMap().getAssetMap();
-            if (!(assetMapObj instanceof Map)) {
+            RELOAD_EXECUTOR.execute(() -> {
+                LifestealRules.reload();
+                LifestealOverrides.reload();
+                ReloadResult result = populateFromAssets();
+                PENDING_RELOAD.compareAndSet(mine, null);
+                mine.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            PENDING_RELOAD.compareAndSet(mine, null);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    /**
+     * Stop the loader thread (plugin shutdown) and persist the index if incremental reloads changed it.
+     */
+    public static void shutdown() {
+        RELOAD_EXECUTOR.shutdownNow();
+        boolean dirty;
+        synchronized (STATE_LOCK) {
+            dirty = indexDirty;
+        }
+        if (dirty) {
+            Map<String, Item> current = currentItemAssets();
+            if (current != null) writeIndex(current);
+        }
+    }
+
+    /**
+     * Where the persistent index (LifestealIndexFile) lives; null disables it.
+     */
+    public static void setIndexFile(@Nullable Path file) {
+        indexFile = file;
+    }
+
+    /**
+     * Startup entry point: if the persisted index matches the current asset set, load values from the
+     * memory-mapped file (no reflection); otherwise fall back to a full populateFromAssets() scan.
+     */
+    @Nonnull
+    public static ReloadResult loadFromIndexOrAssets() {
+        Path file = indexFile;
+        if (file == null) return populateFromAssets();
+        long t0 = System.nanoTime();
+        try {
+            long since = changeVersion();
+            Map<String, Item> current = currentItemAssets();
+            if (current == null) return populateFromAssets();
+            long fingerprint = LifestealIndexFile.fingerprint(current, Item.getAssetMap());
+            LifestealIndexFile index = LifestealIndexFile.open(file);
+            if (index == null || index.fingerprint() != fingerprint) {
+                System.out.println("[AssetLifestealLoader] lifesteal index " + (index == null ? "missing" : "stale") + ", running full scan");
+                return populateFromAssets();
+            }
+
+            List<Item> items = new ArrayList<>(current.values());
+            Double[] values = new Double[items.size()];
+            for (int i = 0; i < values.length; i++) {
+                double v = index.get(safeGetItemId(items.get(i)));
+                if (!Double.isNaN(v)) values[i] = v;
+            }
+            int found = replaceScan(items, values, since);
+            synchronized (STATE_LOCK) {
+                indexDirty = false;
+            }
+            long elapsed = System.nanoTime() - t0;
+            System.out.println("[AssetLifestealLoader] loaded lifesteal for " + found + " items from index "
+                    + file.getFileName() + " (scanned " + items.size() + "; " + millis(elapsed) + " ms)");
+            return new ReloadResult(true, found, items.size(), elapsed);
+        } catch (Throwable t) {
+            System.out.println("[AssetLifestealLoader] could not use lifesteal index, running full scan:");
+            t.printStackTrace();
+            return populateFromAssets();
+        }
+    }
+
+    /**
+     * Full rescan: extract every item asset, then publish the difference against the previous scan
+     * (so items that were deleted or lost their lifesteal value are removed from the registry).
+     * Runs on the calling thread; see reloadAsync() for commands.
+     */
+    @Nonnull
+    public static ReloadResult populateFromAssets() {
+        long t0 = System.nanoTime();
+        try {
+            long since = changeVersion();
+            Map<String, Item> current = currentItemAssets();
+            if (current == null) {
                 System.out.println("[AssetLifestealLoader] item asset map not present or unexpected type.");
-                return;
+                return ReloadResult.failed(System.nanoTime() - t0);
             }
-            @SuppressWarnings("unchecked")
-            Map<String, ?> assetMap = (Map<String, ?>) assetMapObj;
+            List<Item> items = new ArrayList<>(current.values());
+            long t1 = System.nanoTime();
+
+            Double[] values = extractAll(items);
+            long t2 = System.nanoTime();
+
+            int found = replaceScan(items, values, since);
+            long t3 = System.nanoTime();
 
-            int found = 0;
-            for (Object v : assetMap.values()) {
-                if (!(v instanceof Item)) continue;
-                Item it = (Item) v;
+            if (indexFile != null) writeIndex(current);
+            long t4 = System.nanoTime();
+            LifestealMetrics.POPULATE_LATENCY.record(t4 - t0);
+
+            System.out.println("[AssetLifestealLoader] populated lifesteal for " + found + " items"
+                    + " (scanned " + items.size() + "; collect " + millis(t1 - t0) + " ms, extract " + millis(t2 - t1)
+                    + " ms, publish " + millis(t3 - t2) + " ms, persist " + millis(t4 - t3) + " ms)");
+            return new ReloadResult(true, found, items.size(), t3 - t0);
+        } catch (Throwable t) {
+            System.out.println("[AssetLifestealLoader] unexpected error while populating lifesteal from assets:");
+            t.printStackTrace();
+            return ReloadResult.failed(System.nanoTime() - t0);
+        }
+    }
+
+    // Replace the whole scan state with values[i] for items[i] and publish the diff. Returns the number of values.
+    // Package-private (like extractAll) so the jmh benchmarks can run populateFromAssets' steps on stand-in items.
+    static int replaceScan(List<Item> items, Double[] values) {
+        return replaceScan(items, values, changeVersion());
+    }
+
+    // since: changeVersion() read before the asset map was snapshotted. Ids changed incrementally after
+    // that keep their current item and value; everything else is replaced by the scan.
+    private static int replaceScan(List<Item> items, Double[] values, long since) {
+        synchronized (STATE_LOCK) {
+            if (since < lastScanVersion) {
+                System.out.println("[AssetLifestealLoader] dropping a full scan that was overtaken by a newer one");
+                return scannedValues.size();
+            }
+            lastScanVersion = since;
+            changedAt.values().removeIf(v -> v <= since);
+
+            Map<String, Item> previousItems = new LinkedHashMap<>(scannedItems);
+            Map<String, Double> previousValues = new HashMap<>(scannedValues);
+            Map<String, Double> upserts = new HashMap<>();
+            Set<String> removals = new HashSet<>(previousValues.keySet());
+            scannedItems.clear();
+            scannedValues.clear();
+            for (int i = 0; i < values.length; i++) {
+                Item it = items.get(i);
                 String id = safeGetItemId(it);
-                Double value = extractLifestealFromItem(it);
-                if (value != null) {
-                    // Register into the registry for runtime use
-                    LifestealRegistry.setItemLifesteal(id, value);
-                    found++;
+                Double value = values[i];
+                if (changedAt.containsKey(id)) {
+                    // newer than the snapshot: keep what the incremental change left (possibly nothing)
+                    it = previousItems.get(id);
+                    if (it == null) continue;
+                    value = previousValues.get(id);
                 }
+                scannedItems.put(id, it);
+                if (value == null) continue;
+                scannedValues.put(id, value);
+                removals.remove(id);
+                upserts.put(id, value);
             }
-            System.out.println("[AssetLifestealLoader] populated lifesteal for " + found + " items");
+            for (String id : changedAt.keySet()) {
+                Item it = previousItems.get(id);
+                if (it == null || scannedItems.containsKey(id)) continue;
+                // added after the snapshot
+                scannedItems.put(id, it);
+                Double value = previousValues.get(id);
+                if (value == null) continue;
+                scannedValues.put(id, value);
+                removals.remove(id);
+                upserts.put(id, value);
+            }
+            publish(upserts, removals, Map.of(), true);
+            return scannedValues.size();
+        }
+    }
+
+    private static long changeVersion() {
+        synchronized (STATE_LOCK) {
+            return changeVersion;
+        }
+    }
+
+    private static void writeIndex(Map<String, Item> current) {
+        Path file = indexFile;
+        if (file == null) return;
+        try {
+            long fingerprint = LifestealIndexFile.fingerprint(current, Item.getAssetMap());
+            Map<String, Double> values;
+            synchronized (STATE_LOCK) {
+                values = new HashMap<>(scannedValues);
+                indexDirty = false;
+            }
+            LifestealIndexFile.write(file, fingerprint, values);
         } catch (Throwable t) {
-            System.out.println("[AssetLifestealLoader] unexpected error while populating lifesteal from assets:");
+            System.out.println("[AssetLifestealLoader] could not write lifesteal index " + file + ": " + t);
+        }
+    }
+
+    /**
+     * Incremental reload: walk the asset map without reflection and only re-extract items whose
+     * fingerprint (asset instance) changed, plus drop items that disappeared.
+     */
+    public static void reloadChanged() {
+        try {
+            Map<String, Item> current = currentItemAssets();
+            if (current == null) return;
+            Set<String> removed;
+            synchronized (STATE_LOCK) {
+                removed = new HashSet<>(scannedItems.keySet());
+            }
+            removed.removeAll(current.keySet());
+            applyChanges(current, removed);
+        } catch (Throwable t) {
+            System.out.println("[AssetLifestealLoader] unexpected error during incremental lifesteal reload:");
             t.printStackTrace();
         }
     }
 
+    /**
+     * Item assets were (re)loaded by the asset store; only the loaded entries are looked at.
+     */
+    public static void onItemAssetsLoaded(@Nonnull LoadedAssetsEvent<String, Item, DefaultAssetMap<String, Item>> event) {
+        try {
+            applyChanges(event.getLoadedAssets(), Set.of());
+        } catch (Throwable t) {
+            System.out.println("[AssetLifestealLoader] unexpected error while applying loaded item assets:");
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * Item assets were removed by the asset store. Replaced assets are picked up by the loaded event.
+     */
+    public static void onItemAssetsRemoved(@Nonnull RemovedAssetsEvent<String, Item, DefaultAssetMap<String, Item>> event) {
+        if (event.isReplaced()) return;
+        try {
+            applyChanges(Map.of(), event.getRemovedAssets());
+        } catch (Throwable t) {
+            System.out.println("[AssetLifestealLoader] unexpected error while applying removed item assets:");
+            t.printStackTrace();
+        }
+    }
+
+    // Re-extract changed / added items, forget removed ones, publish the diff as one swap.
+    private static void applyChanges(Map<String, Item> candidates, Set<String> removedIds) {
+        long t0 = System.nanoTime();
+        synchronized (STATE_LOCK) {
+            List<String> changedIds = new ArrayList<>();
+            List<Item> changed = new ArrayList<>();
+            for (Map.Entry<String, Item> e : candidates.entrySet()) {
+                Item it = e.getValue();
+                if (it == null || scannedItems.get(e.getKey()) == it) continue; // same fingerprint
+                changedIds.add(e.getKey());
+                changed.add(it);
+            }
+            if (changed.isEmpty() && removedIds.isEmpty()) return;
+
+            Double[] values = extractAll(changed);
+            long version = ++changeVersion;
+
+            Map<String, Double> upserts = new HashMap<>();
+            Set<String> removals = new HashSet<>();
+            Map<String, Item> replaced = new HashMap<>();
+            boolean layoutChanged = false;
+            for (int i = 0; i < values.length; i++) {
+                String id = changedIds.get(i);
+                changedAt.put(id, version);
+                if (scannedItems.put(id, changed.get(i)) == null) layoutChanged = true;
+                else replaced.put(id, changed.get(i));
+                Double old = values[i] == null ? scannedValues.remove(id) : scannedValues.put(id, values[i]);
+                if (values[i] != null && !values[i].equals(old)) upserts.put(id, values[i]);
+                else if (values[i] == null && old != null) removals.add(id);
+            }
+            for (String id : removedIds) {
+                changedAt.put(id, version);
+                if (scannedItems.remove(id) != null) layoutChanged = true;
+                if (scannedValues.remove(id) != null) removals.add(id);
+            }
+            publish(upserts, removals, replaced, layoutChanged);
+            indexDirty = true;
+
+            System.out.println("[AssetLifestealLoader] incremental reload: " + changed.size() + " changed, "
+                    + removedIds.size() + " removed, " + upserts.size() + " updated, " + removals.size()
+                    + " cleared (" + millis(System.nanoTime() - t0) + " ms)");
+        }
+    }
+
+    /**
+     * Replace the override layer (item id -> fraction) and publish only what changed: new or changed
+     * overrides are upserted, dropped ones fall back to the scanned asset value (or are cleared).
+     * Returns the number of registry entries touched.
+     */
+    static int applyOverrides(@Nonnull Map<String, Double> next) {
+        synchronized (STATE_LOCK) {
+            Map<String, Double> upserts = new HashMap<>();
+            Set<String> removals = new HashSet<>();
+            for (Map.Entry<String, Double> e : next.entrySet()) {
+                if (!e.getValue().equals(overrides.get(e.getKey()))) upserts.put(e.getKey(), e.getValue());
+            }
+            for (String id : overrides.keySet()) {
+                if (next.containsKey(id)) continue;
+                Double scanned = scannedValues.get(id);
+                if (scanned != null) upserts.put(id, scanned);
+                else removals.add(id);
+            }
+            overrides.clear();
+            overrides.putAll(next);
+            if (upserts.isEmpty() && removals.isEmpty()) return 0;
+            swap(upserts, removals, Map.of(), false);
+            return upserts.size() + removals.size();
+        }
+    }
+
+    // caller holds STATE_LOCK. replaced: assets swapped under ids scannedItems already had;
+    // layoutChanged: assets were added or removed (or a full scan ran), so the index is rebuilt.
+    private static void publish(Map<String, Double> upserts, Set<String> removals, Map<String, Item> replaced, boolean layoutChanged) {
+        if (!overrides.isEmpty()) {
+            upserts.keySet().removeAll(overrides.keySet());
+            removals.removeAll(overrides.keySet());
+        }
+        swap(upserts, removals, replaced, layoutChanged);
+    }
+
+    // caller holds STATE_LOCK
+    private static void swap(Map<String, Double> upserts, Set<String> removals, Map<String, Item> replaced, boolean layoutChanged) {
+        ItemLifestealIndex base = ItemLifestealIndex.current();
+        // Register into the registry for runtime use (one snapshot publish for the whole diff)
+        LifestealRegistry.Snapshot registry = LifestealRegistry.update(upserts, removals);
+        // Dense per-index table for the damage handler (asset order = index): patch the touched slots
+        // when the layout is unchanged, else rebuild
+        ItemLifestealIndex next = layoutChanged ? null : base.patch(replaced, upserts.keySet(), removals, registry);
+        ItemLifestealIndex.publish(next != null ? next : ItemLifestealIndex.build(new ArrayList<>(scannedItems.values())));
+    }
+
+    // id -> Item in asset-map order, or null if the asset map is unavailable
+    @Nullable
+    private static Map<String, Item> currentItemAssets() {
+        Object assetMapObj = Item.getAssetMap().getAssetMap();
+        if (!(assetMapObj instanceof Map)) return null;
+        Map<?, ?> assetMap = (Map<?, ?>) assetMapObj;
+        Map<String, Item> out = new LinkedHashMap<>(assetMap.size() * 2);
+        for (Object v : assetMap.values()) {
+            if (v instanceof Item) out.put(safeGetItemId((Item) v), (Item) v);
+        }
+        return out;
+    }
+
+    // values[i] belongs to items.get(i); null = no lifesteal found
+    static Double[] extractAll(List<Item> items) {
+        Double[] values = new Double[items.size()];
+        if (items.size() < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < values.length; i++) values[i] = extractLifestealFromItem(items.get(i));
+        } else {
+            IntStream.range(0, values.length).parallel()
+                    .forEach(i -> values[i] = extractLifestealFromItem(items.get(i)));
+        }
+        return values;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
     private static String safeGetItemId(Item item) {
         try {
             String id = item.getId();
@@ -66,59 +492,40 @@ public final class AssetLifestealLoader {
 
     private static Double extractLifestealFromItem(Item item) {
         try {
+            ExtractionPlan plan = ITEM_PLANS.get(item.getClass());
+
             // 1) Try direct getters on Item
-            for (String methodName : new String[] { "getLifesteal", "getLifeSteal", "getLifestealValue", "lifesteal" }) {
-                try {
-                    Method m = item.getClass().getMethod(methodName);
-                    Object out = m.invoke(item);
-                    Double d = toDouble(out);
-                    if (d != null) return d;
-                } catch (NoSuchMethodException ignore) {}
+            for (MethodHandle getter : plan.itemGetters) {
+                Double d = toDouble((Object) getter.invokeExact((Object) item));
+                if (d != null) return d;
             }
 
             // 2) Try item.getConfig() -> fields or getters
-            try {
-                Method getConfig = item.getClass().getMethod("getConfig");
-                Object cfg = getConfig.invoke(item);
+            if (plan.getConfig != null) {
+                Object cfg = (Object) plan.getConfig.invokeExact((Object) item);
                 if (cfg != null) {
-                    for (String methodName : new String[] { "getLifesteal", "getLifeSteal", "lifesteal" }) {
-                        try {
-                            Method cm = cfg.getClass().getMethod(methodName);
-                            Object out = cm.invoke(cfg);
-                            Double d = toDouble(out);
-                            if (d != null) return d;
-                        } catch (NoSuchMethodException ignore) {}
-                    }
-                    for (String fieldName : new String[] { "Lifesteal", "lifesteal", "lifeSteal" }) {
-                        try {
-                            Field f = cfg.getClass().getField(fieldName);
-                            Object out = f.get(cfg);
-                            Double d = toDouble(out);
-                            if (d != null) return d;
-                        } catch (NoSuchFieldException ignore) {}
+                    for (MethodHandle getter : CONFIG_PLANS.get(cfg.getClass())) {
+                        Double d = toDouble((Object) getter.invokeExact(cfg));
+                        if (d != null) return d;
                     }
                 }
-            } catch (NoSuchMethodException ignore) {}
+            }
 
             // 3) Try any Map-returning method on Item and look for keys
-            for (Method mm : item.getClass().getMethods()) {
-                if (mm.getParameterCount() != 0) continue;
-                Class<?> rt = mm.getReturnType();
-                if (Map.class.isAssignableFrom(rt)) {
-                    try {
-                        Object out = mm.invoke(item);
-                        if (out instanceof Map) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> map = (Map<String, Object>) out;
-                            for (String key : new String[] { "Lifesteal", "lifesteal", "lifeSteal" }) {
-                                if (map.containsKey(key)) {
-                                    Double d = toDouble(map.get(key));
-                                    if (d != null) return d;
-                                }
+            for (MethodHandle getter : plan.mapGetters) {
+                try {
+                    Object out = (Object) getter.invokeExact((Object) item);
+                    if (out instanceof Map) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> map = (Map<String, Object>) out;
+                        for (String key : MAP_KEYS) {
+                            if (map.containsKey(key)) {
+                                Double d = toDouble(map.get(key));
+                                if (d != null) return d;
                             }
                         }
-                    } catch (Throwable ignored) {}
-                }
+                    }
+                } catch (Throwable ignored) {}
             }
         } catch (Throwable t) {
             // ignore and return null to allow fallback heuristics
@@ -134,4 +541,109 @@ public final class AssetLifestealLoader {
         } catch (Exception ignored) {}
         return null;
     }
-}
\ No newline at end of file
+
+    // Public zero-arg methods with the given names, first match per name, in name order.
+    private static MethodHandle[] namedGetters(Class<?> type, String[] names) {
+        Method[] methods = type.getMethods();
+        MethodHandle[] out = new MethodHandle[names.length];
+        int count = 0;
+        for (String name : names) {
+            for (Method m : methods) {
+                if (m.getParameterCount() != 0 || !m.getName().equals(name)) continue;
+                MethodHandle h = ReflectiveAccessors.getter(m);
+                if (h != null) {
+                    out[count++] = h;
+                    break;
+                }
+            }
+        }
+        return ReflectiveAccessors.trim(out, count);
+    }
+
+    // Public fields with the given names, in name order.
+    private static MethodHandle[] namedFields(Class<?> type, String[] names) {
+        Field[] fields = type.getFields();
+        MethodHandle[] out = new MethodHandle[names.length];
+        int count = 0;
+        for (String name : names) {
+            for (Field f : fields) {
+                if (!f.getName().equals(name)) continue;
+                MethodHandle h = ReflectiveAccessors.getter(f);
+                if (h != null) {
+                    out[count++] = h;
+                    break;
+                }
+            }
+        }
+        return ReflectiveAccessors.trim(out, count);
+    }
+
+    /**
+     * Outcome of a full scan.
+     */
+    public static final class ReloadResult {
+        private final boolean success;
+        private final int itemsWithLifesteal;
+        private final int itemsScanned;
+        private final long elapsedNanos;
+
+        ReloadResult(boolean success, int itemsWithLifesteal, int itemsScanned, long elapsedNanos) {
+            this.success = success;
+            this.itemsWithLifesteal = itemsWithLifesteal;
+            this.itemsScanned = itemsScanned;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        static ReloadResult failed(long elapsedNanos) {
+            return new ReloadResult(false, 0, 0, elapsedNanos);
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public int getItemsWithLifesteal() {
+            return itemsWithLifesteal;
+        }
+
+        public int getItemsScanned() {
+            return itemsScanned;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Accessors that exist on one concrete Item class, resolved once.
+     */
+    private static final class ExtractionPlan {
+        final MethodHandle[] itemGetters;
+        final MethodHandle getConfig; // null if the class has no getConfig()
+        final MethodHandle[] mapGetters;
+
+        private ExtractionPlan(MethodHandle[] itemGetters, MethodHandle getConfig, MethodHandle[] mapGetters) {
+            this.itemGetters = itemGetters;
+            this.getConfig = getConfig;
+            this.mapGetters = mapGetters;
+        }
+
+        static ExtractionPlan forItemClass(Class<?> type) {
+            MethodHandle[] getConfig = namedGetters(type, new String[] { "getConfig" });
+
+            Method[] methods = type.getMethods();
+            MethodHandle[] maps = new MethodHandle[methods.length];
+            int count = 0;
+            for (Method m : methods) {
+                if (m.getParameterCount() != 0 || !Map.class.isAssignableFrom(m.getReturnType())) continue;
+                MethodHandle h = ReflectiveAccessors.getter(m);
+                if (h != null) maps[count++] = h;
+            }
+
+            return new ExtractionPlan(namedGetters(type, ITEM_GETTERS),
+                    getConfig.length > 0 ? getConfig[0] : null,
+                    ReflectiveAccessors.trim(maps, count));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
+import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps each concrete Damage.Source class to the Resolver that finds who leeches from it.
+ *
+ * - A class is matched once (via ClassValue) against the registered classes: the class itself, then
+ *   its superclasses, then its interfaces. After that a lookup is one ClassValue read per event.
+ * - Built in: EntitySource (the attacker and its held item) and ProjectileSource (the shooter; the
+ *   projectile's own item when it is a thrown item entity, else the shooter's held item).
+ * - Other plugins add source types with register(...); that swaps in a new table, so register at
+ *   startup rather than per event.
+ */
+public final class DamageSourceResolvers {
+
+    /**
+     * Finds the attacker behind one kind of damage source. Called on the world thread for every
+     * damage event of that kind, so implementations should not allocate.
+     */
+    public interface Resolver {
+        /**
+         * The entity that should be healed, or null if nobody leeches from this source.
+         */
+        @Nullable
+        Ref<EntityStore> attacker(@Nonnull Damage.Source source);
+
+        /**
+         * The item the damage was dealt with, or null to use the attacker's held item (cached on the
+         * attacker as a LifestealComponent).
+         */
+        @Nullable
+        default ItemStack weapon(@Nonnull Damage.Source source, @Nonnull Store<EntityStore> store) {
+            return null;
+        }
+    }
+
+    /** Sources nobody leeches from (environment, commands, unregistered types). */
+    public static final Resolver NONE = source -> null;
+
+    public static final Resolver ENTITY = source -> ((Damage.EntitySource) source).getRef();
+
+    public static final Resolver PROJECTILE = new Resolver() {
+        @Override
+        public Ref<EntityStore> attacker(@Nonnull Damage.Source source) {
+            return ((Damage.ProjectileSource) source).getRef();
+        }
+
+        @Override
+        public ItemStack weapon(@Nonnull Damage.Source source, @Nonnull Store<EntityStore> store) {
+            Ref<EntityStore> projectile = ((Damage.ProjectileSource) source).getProjectile();
+            if (projectile == null || !projectile.isValid()) return null;
+            ComponentType<EntityStore, ItemComponent> type = ItemComponent.getComponentType();
+            ItemComponent item = type == null ? null : store.getComponent(projectile, type);
+            return item == null ? null : item.getItemStack();
+        }
+    };
+
+    private static final Object LOCK = new Object();
+    private static final Map<Class<?>, Resolver> registered = new LinkedHashMap<>();
+    private static volatile Table table;
+
+    static {
+        registered.put(Damage.EntitySource.class, ENTITY);
+        registered.put(Damage.ProjectileSource.class, PROJECTILE);
+        table = new Table(Map.copyOf(registered));
+    }
+
+    private DamageSourceResolvers() {}
+
+    /**
+     * The resolver for this source's class; NONE if no registered class matches.
+     */
+    @Nonnull
+    public static Resolver of(@Nonnull Damage.Source source) {
+        return table.byClass.get(source.getClass());
+    }
+
+    /**
+     * Use resolver for sourceType and its subclasses (unless a subclass has its own). Replaces an
+     * earlier registration for the same class.
+     */
+    public static void register(@Nonnull Class<? extends Damage.Source> sourceType, @Nonnull Resolver resolver) {
+        synchronized (LOCK) {
+            registered.put(sourceType, resolver);
+            table = new Table(Map.copyOf(registered));
+        }
+        System.out.println("[DamageSourceResolvers] registered " + sourceType.getName());
+    }
+
+    private static final class Table {
+        final ClassValue<Resolver> byClass;
+
+        Table(Map<Class<?>, Resolver> resolvers) {
+            this.byClass = new ClassValue<>() {
+                @Override
+                protected Resolver computeValue(Class<?> type) {
+                    return find(type, resolvers);
+                }
+            };
+        }
+
+        private static Resolver find(Class<?> type, Map<Class<?>, Resolver> resolvers) {
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                Resolver r = resolvers.get(c);
+                if (r != null) return r;
+            }
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Class<?> i : c.getInterfaces()) {
+                    Resolver r = resolvers.get(i);
+                    if (r != null) return r;
+                }
+            }
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.myplugin;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a callback on a daemon thread whenever one file is created, modified or deleted.
+ *
+ * - Watches the file's parent directory (a WatchService cannot watch single files) and ignores
+ *   events for other names.
+ * - Editors write a file in several steps (truncate, write, rename), so the callback waits until no
+ *   event has arrived for DEBOUNCE_MILLIS and then runs once.
+ * - The callback runs on the watcher thread; it must not touch world state directly.
+ */
+final class FileWatcher {
+    static final long DEBOUNCE_MILLIS = 500;
+
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private FileWatcher(WatchService watchService, Path name, Runnable onChange, String threadName) {
+        this.watchService = watchService;
+        this.thread = new Thread(() -> loop(name, onChange), threadName);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Start watching, or return null (and log) if the directory cannot be watched.
+     */
+    @Nullable
+    static FileWatcher start(@Nonnull Path file, @Nonnull String threadName, @Nonnull Runnable onChange) {
+        Path dir = file.toAbsolutePath().getParent();
+        try {
+            WatchService ws = FileSystems.getDefault().newWatchService();
+            dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            FileWatcher watcher = new FileWatcher(ws, file.getFileName(), onChange, threadName);
+            watcher.thread.start();
+            return watcher;
+        } catch (IOException e) {
+            System.out.println("[FileWatcher] cannot watch " + dir + ", changes to " + file.getFileName() + " need a reload: " + e);
+            return null;
+        }
+    }
+
+    void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {}
+        thread.interrupt();
+    }
+
+    private void loop(Path name, Runnable onChange) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean relevant = drain(key, name);
+                // debounce: keep collecting until the directory has been quiet for a while
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(next, name);
+                }
+                if (relevant) {
+                    try {
+                        onChange.run();
+                    } catch (Throwable t) {
+                        System.out.println("[FileWatcher] handler for " + name + " failed:");
+                        t.printStackTrace();
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // closed
+        } catch (Throwable t) {
+            System.out.println("[FileWatcher] watcher for " + name + " stopped:");
+            t.printStackTrace();
+        }
+    }
+
+    private static boolean drain(WatchKey key, Path name) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) relevant = true;
+        }
+        key.reset();
+        return relevant;
+    }
+}
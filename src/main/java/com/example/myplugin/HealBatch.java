@@ -0,0 +1,155 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.modules.entitystats.asset.DefaultEntityStatTypes;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Lifesteal heals collected during one command-buffer cycle (one tick of the damage systems).
+ *
+ * - add(...) sums heals per attacker; the first add for a CommandBuffer schedules a single
+ *   commandBuffer.run(...) that applies the totals when the buffer is consumed.
+ * - flush does one EntityStatMap lookup and one addStatValue per attacker, however many hits
+ *   that attacker landed. Heals are positive, so summing before the health clamp gives the same
+ *   result as applying them one by one.
+ * - Attackers are keyed by Ref.getIndex() in a small open-addressing table; no boxing.
+ * - Each thread keeps its batch and reopens it for the next CommandBuffer once the previous one has
+ *   run, so a steady stream of ticks allocates nothing. A batch whose buffer has not run yet keeps
+ *   its totals and the thread starts a new one.
+ */
+final class HealBatch {
+    private static final ThreadLocal<HealBatch> CURRENT = new ThreadLocal<>();
+
+    // bound once; scheduling them again every tick allocates nothing
+    private final Consumer<Store<EntityStore>> flusher = this::flush;
+    private final Sink statMaps = this::applyToStatMap;
+
+    private CommandBuffer<EntityStore> buffer;
+    private Store<EntityStore> flushing; // set while flush(...) runs
+    private volatile boolean flushed;    // buffer has run: later adds need a batch of their own
+    private volatile boolean reusable;   // flushed and cleared: may be reopened for another buffer
+
+    @SuppressWarnings("unchecked")
+    private Ref<EntityStore>[] refs = (Ref<EntityStore>[]) new Ref<?>[16];
+    private float[] amounts = new float[16];
+    private int[] slots = new int[32]; // ref index -> position + 1 (0 = empty)
+    private int size;
+
+    /**
+     * Queue a heal for the attacker; applied once per attacker when the command buffer runs.
+     */
+    static void add(@Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull Ref<EntityStore> attackerRef, float heal) {
+        HealBatch batch = CURRENT.get();
+        if (batch == null || batch.buffer != commandBuffer || batch.flushed) {
+            if (batch == null || !batch.reusable) {
+                batch = new HealBatch();
+                CURRENT.set(batch);
+            }
+            batch.open(commandBuffer);
+            commandBuffer.run(batch.flusher);
+        }
+        batch.accumulate(attackerRef, heal);
+    }
+
+    private void open(CommandBuffer<EntityStore> commandBuffer) {
+        buffer = commandBuffer;
+        Arrays.fill(slots, 0);
+        flushed = false;
+        reusable = false;
+    }
+
+    private void accumulate(Ref<EntityStore> ref, float heal) {
+        int mask = slots.length - 1;
+        int s = slot(ref.getIndex(), mask);
+        for (;;) {
+            int pos = slots[s] - 1;
+            if (pos < 0) break;
+            if (refs[pos] == ref) {
+                amounts[pos] += heal;
+                return;
+            }
+            s = (s + 1) & mask;
+        }
+        if (size == refs.length) {
+            refs = Arrays.copyOf(refs, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        refs[size] = ref;
+        amounts[size] = heal;
+        slots[s] = ++size;
+        if (size * 2 > slots.length) rehash();
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int pos = 0; pos < size; pos++) {
+            int s = slot(refs[pos].getIndex(), mask);
+            while (slots[s] != 0) s = (s + 1) & mask;
+            slots[s] = pos + 1;
+        }
+    }
+
+    private static int slot(int refIndex, int mask) {
+        int h = refIndex * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * The batch this thread is filling for commandBuffer, or null. For the jmh simulator, whose
+     * stand-in CommandBuffer is never consumed: it drains the batch into stand-in stat maps instead.
+     */
+    @Nullable
+    static HealBatch openFor(@Nonnull CommandBuffer<EntityStore> commandBuffer) {
+        HealBatch batch = CURRENT.get();
+        return batch != null && batch.buffer == commandBuffer && !batch.flushed ? batch : null;
+    }
+
+    /**
+     * Close the batch and hand each live attacker's total to sink.
+     */
+    void drain(@Nonnull Sink sink) {
+        flushed = true;
+        for (int pos = 0; pos < size; pos++) {
+            Ref<EntityStore> ref = refs[pos];
+            if (ref == null || !ref.isValid()) continue;
+            sink.heal(ref, amounts[pos]);
+        }
+        Arrays.fill(refs, 0, size, null);
+        size = 0;
+        buffer = null;
+        reusable = true;
+    }
+
+    private void flush(Store<EntityStore> store) {
+        flushing = store;
+        try {
+            drain(statMaps);
+        } finally {
+            flushing = null;
+        }
+    }
+
+    private void applyToStatMap(Ref<EntityStore> ref, float amount) {
+        EntityStatMap statMap = (EntityStatMap) flushing.getComponent(ref, EntityStatMap.getComponentType());
+        if (statMap == null) {
+            LifestealMetrics.count(LifestealDebugLog.NO_STAT_MAP);
+            if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.NO_STAT_MAP);
+            return;
+        }
+        statMap.addStatValue(DefaultEntityStatTypes.getHealth(), amount);
+        LifestealMetrics.healed(amount);
+    }
+
+    interface Sink {
+        void heal(@Nonnull Ref<EntityStore> ref, float amount);
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Per-attacker cap on lifesteal healing over a sliding window (anti burst-heal in PvP).
+ *
+ * - One instance per entity store (an ECS resource), only touched from that store's world thread.
+ * - State lives in flat primitive arrays indexed by a slot per attacker: BUCKETS sub-window heal
+ *   totals, their running sum and the last bucket written.
+ * - Slots are keyed by the Ref object, not Ref.getIndex(): the store swap-removes entities and
+ *   moves the last one into the freed index (Ref.setIndex), and batch removals run every
+ *   onEntityRemove before any of the moves. The Ref -> slot table is open-addressed on the Ref's
+ *   fixed hash and compared by identity, so a window follows its entity through index moves and
+ *   only a new entity starts empty. admit(...) is one probe plus a few array reads and writes; no
+ *   allocation except when the table or the slot arrays grow.
+ * - ReclaimOnRemove frees a slot as soon as its entity is removed; refs that went invalid without
+ *   the callback are dropped whenever the table is rebuilt.
+ * - The window slides in steps of window / BUCKETS; a heal is clipped to what is left of maxHeal
+ *   over the last window.
+ * - Settings come from the "lifestealCap" object in config.json (PluginConfig.getHealCap()), read
+ *   per hit so a reload applies immediately; maxHeal 0 disables the cap.
+ */
+public final class HealRateLimiter implements Resource<EntityStore> {
+    static final int BUCKETS = 8; // power of two
+    private static final int BUCKET_MASK = BUCKETS - 1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static ResourceType<EntityStore, HealRateLimiter> resourceType;
+
+    private Settings applied = Settings.DISABLED; // settings the current state was built for
+    private long originNanos = System.nanoTime();
+
+    // Ref -> slot; linear probing, keys.length is a power of two and at most half full
+    @SuppressWarnings("unchecked")
+    private Ref<EntityStore>[] keys = (Ref<EntityStore>[]) new Ref<?>[INITIAL_CAPACITY * 2];
+    private int[] slotOf = new int[INITIAL_CAPACITY * 2];
+    private int size;
+
+    // per-slot window state; freed slots are cleared and reused before new ones are taken
+    private long[] lastBucket = new long[INITIAL_CAPACITY];
+    private float[] windowSum = new float[INITIAL_CAPACITY];
+    private float[] buckets = new float[INITIAL_CAPACITY * BUCKETS];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int nextSlot;
+
+    /**
+     * Registered type, or null if LifestealPlugin has not registered it (callers then skip the cap).
+     */
+    @Nullable
+    public static ResourceType<EntityStore, HealRateLimiter> getResourceType() {
+        return resourceType;
+    }
+
+    static void setResourceType(ResourceType<EntityStore, HealRateLimiter> type) {
+        resourceType = type;
+    }
+
+    /**
+     * The store's limiter, or null if the cap is disabled or the resource is not registered.
+     */
+    @Nullable
+    static HealRateLimiter of(@Nonnull Store<EntityStore> store) {
+        ResourceType<EntityStore, HealRateLimiter> type = resourceType;
+        if (type == null || !PluginConfig.current().getHealCap().enabled()) return null;
+        return store.getResource(type);
+    }
+
+    /**
+     * Charge a heal against the attacker's window and return the part that may be applied
+     * (heal itself, something smaller, or 0 once the cap is reached). New settings drop all windows.
+     */
+    float admit(@Nonnull Ref<EntityStore> ref, float heal, long nowNanos) {
+        Settings s = PluginConfig.current().getHealCap();
+        if (!s.enabled()) return heal;
+        if (s != applied) {
+            if (s.equals(applied)) applied = s; // reloaded with the same values: keep the windows
+            else reset(s, nowNanos);
+        }
+
+        long bucket = (nowNanos - originNanos) / s.bucketNanos;
+        int pos = find(ref);
+        int i;
+        if (pos < 0) {
+            i = insert(ref); // a new entity: its slot starts empty
+        } else {
+            i = slotOf[pos];
+            int base = i * BUCKETS;
+            long elapsed = bucket - lastBucket[i];
+            if (elapsed >= BUCKETS) {
+                Arrays.fill(buckets, base, base + BUCKETS, 0f);
+                windowSum[i] = 0f;
+            } else {
+                // expire the buckets that slid out of the window since the last heal
+                float sum = windowSum[i];
+                for (long b = lastBucket[i] + 1; b <= bucket; b++) {
+                    int slot = base + (int) (b & BUCKET_MASK);
+                    sum -= buckets[slot];
+                    buckets[slot] = 0f;
+                }
+                windowSum[i] = sum > 0f ? sum : 0f;
+            }
+        }
+        lastBucket[i] = bucket;
+
+        float room = s.maxHeal - windowSum[i];
+        if (room <= 0f) return 0f;
+        float granted = heal <= room ? heal : room;
+        buckets[i * BUCKETS + (int) (bucket & BUCKET_MASK)] += granted;
+        windowSum[i] += granted;
+        return granted;
+    }
+
+    /**
+     * Free the slot of a removed entity.
+     */
+    void reclaim(@Nonnull Ref<EntityStore> ref) {
+        int pos = find(ref);
+        if (pos >= 0) remove(pos);
+    }
+
+    // table position of ref, or -1
+    private int find(Ref<EntityStore> ref) {
+        int mask = keys.length - 1;
+        for (int p = home(ref, mask); ; p = (p + 1) & mask) {
+            Ref<EntityStore> k = keys[p];
+            if (k == ref) return p;
+            if (k == null) return -1;
+        }
+    }
+
+    private static int home(Ref<EntityStore> ref, int mask) {
+        int h = ref.hashCode() * 0x9E3779B9; // Ref caches its hash at construction; it does not follow setIndex
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int insert(Ref<EntityStore> ref) {
+        if ((size + 1) * 2 > keys.length) rebuild();
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+        put(ref, slot);
+        size++;
+        return slot;
+    }
+
+    private void put(Ref<EntityStore> ref, int slot) {
+        int mask = keys.length - 1;
+        int p = home(ref, mask);
+        while (keys[p] != null) p = (p + 1) & mask;
+        keys[p] = ref;
+        slotOf[p] = slot;
+    }
+
+    private void remove(int pos) {
+        freeSlot(slotOf[pos]);
+        size--;
+        // backward-shift deletion: pull later entries of the same probe run into the hole
+        int mask = keys.length - 1;
+        int hole = pos;
+        keys[hole] = null;
+        for (int p = (hole + 1) & mask; keys[p] != null; p = (p + 1) & mask) {
+            int h = home(keys[p], mask);
+            boolean reachable = hole <= p ? (h > hole && h <= p) : (h > hole || h <= p);
+            if (reachable) continue;
+            keys[hole] = keys[p];
+            slotOf[hole] = slotOf[p];
+            keys[p] = null;
+            hole = p;
+        }
+    }
+
+    // Drops refs of entities that are gone, then doubles the table if it is still too full
+    @SuppressWarnings("unchecked")
+    private void rebuild() {
+        Ref<EntityStore>[] oldKeys = keys;
+        int[] oldSlots = slotOf;
+        int live = 0;
+        for (int p = 0; p < oldKeys.length; p++) {
+            Ref<EntityStore> k = oldKeys[p];
+            if (k == null) continue;
+            if (k.isValid()) live++;
+            else freeSlot(oldSlots[p]);
+        }
+        int capacity = oldKeys.length;
+        while ((live + 1) * 2 > capacity) capacity *= 2;
+        keys = (Ref<EntityStore>[]) new Ref<?>[capacity];
+        slotOf = new int[capacity];
+        for (int p = 0; p < oldKeys.length; p++) {
+            Ref<EntityStore> k = oldKeys[p];
+            if (k != null && k.isValid()) put(k, oldSlots[p]);
+        }
+        size = live;
+    }
+
+    private int newSlot() {
+        int slot = nextSlot++;
+        if (slot >= windowSum.length) {
+            int capacity = windowSum.length * 2;
+            lastBucket = Arrays.copyOf(lastBucket, capacity);
+            windowSum = Arrays.copyOf(windowSum, capacity);
+            buckets = Arrays.copyOf(buckets, capacity * BUCKETS);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return slot;
+    }
+
+    private void freeSlot(int i) {
+        windowSum[i] = 0f;
+        lastBucket[i] = 0L;
+        Arrays.fill(buckets, i * BUCKETS, (i + 1) * BUCKETS, 0f);
+        freeSlots[freeCount++] = i;
+    }
+
+    private void reset(Settings s, long nowNanos) {
+        applied = s;
+        originNanos = nowNanos;
+        Arrays.fill(keys, null);
+        size = 0;
+        freeCount = 0;
+        nextSlot = 0;
+        Arrays.fill(windowSum, 0f);
+        Arrays.fill(lastBucket, 0L);
+        Arrays.fill(buckets, 0f);
+    }
+
+    /**
+     * Windows are runtime-only; a copy starts empty.
+     */
+    @Override
+    public HealRateLimiter clone() {
+        return new HealRateLimiter();
+    }
+
+    /**
+     * Immutable cap settings: at most maxHeal health leeched per attacker per window.
+     */
+    public static final class Settings {
+        public static final Settings DISABLED = new Settings(0f, 1000L);
+
+        private final float maxHeal;
+        private final long windowMillis;
+        private final long bucketNanos;
+
+        public Settings(float maxHeal, long windowMillis) {
+            if (windowMillis <= 0) throw new IllegalArgumentException("windowMs must be > 0");
+            this.maxHeal = maxHeal > 0f ? maxHeal : 0f;
+            this.windowMillis = windowMillis;
+            this.bucketNanos = Math.max(1L, windowMillis * 1_000_000L / BUCKETS);
+        }
+
+        public boolean enabled() {
+            return maxHeal > 0f;
+        }
+
+        public float getMaxHeal() {
+            return maxHeal;
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Settings)) return false;
+            Settings other = (Settings) o;
+            return Float.compare(maxHeal, other.maxHeal) == 0 && windowMillis == other.windowMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Float.hashCode(maxHeal) + Long.hashCode(windowMillis);
+        }
+
+        @Override
+        public String toString() {
+            return enabled() ? maxHeal + " health per " + windowMillis + "ms" : "disabled";
+        }
+    }
+
+    /**
+     * Frees an entity's window when it leaves the store, so its slot can be reused.
+     */
+    public static class ReclaimOnRemove extends RefSystem<EntityStore> {
+
+        @Nonnull
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+
+        @Override
+        public void onEntityAdded(@Nonnull Ref<EntityStore> ref, @Nonnull AddReason reason,
+                                  @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+        }
+
+        @Override
+        public void onEntityRemove(@Nonnull Ref<EntityStore> ref, @Nonnull RemoveReason reason,
+                                   @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+            ResourceType<EntityStore, HealRateLimiter> type = resourceType;
+            if (type == null) return;
+            store.getResource(type).reclaim(ref);
+        }
+    }
+}
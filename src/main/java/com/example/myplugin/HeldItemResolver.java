@@ -0,0 +1,104 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Resolves the item an entity is holding without reflecting on every call.
+ *
+ * - Each concrete inventory / entity class is probed once (via ClassValue) and the matching
+ *   zero-arg getters are bound as MethodHandles. Classes with no usable getter cache an empty array.
+ * - Probing walks getMethods() instead of getMethod(name), so no NoSuchMethodException is thrown,
+ *   not even during warm-up.
+ * - After warm-up a lookup is one ClassValue read plus invokeExact on the cached handles.
+ */
+public final class HeldItemResolver {
+
+    // Candidate getter names, in the order LifestealSystems used to try them.
+    private static final String[] ITEM_GETTERS = {
+            "getActiveHotbarItem", "getActiveHotbarItemStack", "getItemInHand",
+            "getActiveItem", "getActiveSlotItem", "getItem"
+    };
+
+    private static final ClassValue<MethodHandle[]> INVENTORY_GETTER = new ClassValue<>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            return bindGetters(type, new String[] { "getInventory" }, false);
+        }
+    };
+
+    private static final ClassValue<MethodHandle[]> ITEM_GETTERS_BY_CLASS = new ClassValue<>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            return bindGetters(type, ITEM_GETTERS, true);
+        }
+    };
+
+    private HeldItemResolver() {}
+
+    /**
+     * Held item of the given entity: inventory getters first, then getters on the entity itself.
+     * Returns null if nothing is held or the entity type exposes no known getter.
+     */
+    @Nullable
+    public static ItemStack getHeldItem(@Nonnull Object entity) {
+        MethodHandle[] inventoryGetter = INVENTORY_GETTER.get(entity.getClass());
+        if (inventoryGetter.length == 0) return null;
+
+        Object inventory = invoke(inventoryGetter[0], entity);
+        if (inventory == null) return null;
+
+        ItemStack held = firstItem(ITEM_GETTERS_BY_CLASS.get(inventory.getClass()), inventory);
+        if (held != null) return held;
+
+        // fallback: some LivingEntity implementations expose getActiveHotbarItem directly
+        return firstItem(ITEM_GETTERS_BY_CLASS.get(entity.getClass()), entity);
+    }
+
+    @Nullable
+    private static ItemStack firstItem(MethodHandle[] getters, Object target) {
+        for (MethodHandle getter : getters) {
+            Object out = invoke(getter, target);
+            if (out instanceof ItemStack) return (ItemStack) out;
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Object invoke(MethodHandle getter, Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    // Probe once per class; getters are returned in candidate-name order.
+    private static MethodHandle[] bindGetters(Class<?> type, String[] names, boolean itemStackOnly) {
+        Method[] methods = type.getMethods();
+        MethodHandle[] bound = new MethodHandle[names.length];
+        int count = 0;
+        for (String name : names) {
+            for (Method m : methods) {
+                if (m.getParameterCount() != 0 || Modifier.isStatic(m.getModifiers())) continue;
+                if (!m.getName().equals(name)) continue;
+                if (itemStackOnly && !couldReturnItemStack(m.getReturnType())) continue;
+                MethodHandle h = ReflectiveAccessors.getter(m);
+                if (h != null) {
+                    bound[count++] = h;
+                    break;
+                }
+            }
+        }
+        return ReflectiveAccessors.trim(bound, count);
+    }
+
+    private static boolean couldReturnItemStack(Class<?> rt) {
+        return ItemStack.class.isAssignableFrom(rt) || rt.isAssignableFrom(ItemStack.class);
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dense, index-addressed view of LifestealRegistry for the damage hot path.
+ *
+ * - AssetLifestealLoader assigns each item a dense index (its position in the asset map walk)
+ *   and publishes a table whose lifesteal[] is indexed by it. NO_LIFESTEAL marks "no explicit value".
+ * - Registry ids that are not item assets (e.g. built-in defaults) get indexes after the assets.
+ * - The hot path resolves the index from the ItemStack's id reference through a small identity
+ *   cache (no String.hashCode / equals), then does one array read. ItemStack.getItem() would do a
+ *   string-keyed asset lookup itself, so the id reference is the cheapest stable handle we have.
+ * - The cache is 2-way set-associative over plain String[] / int[] arrays, so two ids that share a set
+ *   do not evict each other and a miss allocates nothing. Each way has a seqlock stamp: a miss claims
+ *   the way with a CAS before writing id and index, and a reader only trusts what it read if the stamp
+ *   was even and unchanged, so it never pairs one thread's id with another's index. Racing misses
+ *   only skip caching.
+ * - A table is only valid for the registry generation it was built from; when the registry moves
+ *   on, isCurrent() turns false and callers fall back to LifestealRegistry until refresh().
+ * - ruleLifesteal[] holds the LifestealRules result for every asset, evaluated once when the table
+ *   is built; asset reloads, registry refreshes and rule reloads all build a new table.
+ * - Incremental changes (an asset replaced under the same id, a few registry values) go through
+ *   patch(...): the dense arrays are copied and only the touched slots are rewritten, so one item
+ *   edit does not re-evaluate the rules for every asset. Adding or removing assets needs build().
+ */
+public final class ItemLifestealIndex {
+    /** Sentinel in lifesteal[]: the item has no explicit lifesteal value. */
+    public static final float NO_LIFESTEAL = Float.NaN;
+
+    private static final int CACHE_SETS = 512; // power of two; 2 ways each
+    private static final int MISS = Integer.MIN_VALUE;
+    private static final VarHandle CACHE_STAMP = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static volatile ItemLifestealIndex current = new ItemLifestealIndex(new String[0], new Item[0], 0, LifestealRegistry.snapshot());
+
+    private final String[] ids;
+    private final Item[] items;
+    private final int assetCount;
+    private final float[] lifesteal;
+    private final float[] ruleLifesteal; // per asset
+    private final LifestealRules rules; // the rules ruleLifesteal[] was evaluated with
+    private final long registryGeneration;
+
+    // id -> index, open addressing; only used to fill the identity cache
+    private final String[] tableKeys;
+    private final int[] tableIndexes;
+
+    // identity cache: id reference -> index; set s holds ways 2s and 2s+1, filled round-robin
+    private final String[] cacheIds = new String[CACHE_SETS * 2];
+    private final int[] cacheIndexes = new int[CACHE_SETS * 2];
+    private final int[] cacheStamps = new int[CACHE_SETS * 2]; // odd while a miss is writing the way
+    private int cacheVictim; // racy on purpose, only picks the way to evict
+
+    private ItemLifestealIndex(String[] ids, Item[] items, int assetCount, LifestealRegistry.Snapshot registry) {
+        this.ids = ids;
+        this.items = items;
+        this.assetCount = assetCount;
+        this.registryGeneration = registry.generation();
+        this.lifesteal = new float[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            double v = registry.get(ids[i]);
+            lifesteal[i] = Double.isNaN(v) ? NO_LIFESTEAL : (float) v;
+        }
+        LifestealRules rules = LifestealRules.current();
+        this.rules = rules;
+        this.ruleLifesteal = new float[assetCount];
+        for (int i = 0; i < assetCount; i++) ruleLifesteal[i] = rules.evaluate(items[i], ids[i]);
+
+        int cap = 8;
+        while (cap < ids.length * 2) cap <<= 1;
+        tableKeys = new String[cap];
+        tableIndexes = new int[cap];
+        int mask = cap - 1;
+        for (int i = 0; i < ids.length; i++) {
+            int s = LifestealRegistry.Snapshot.slot(ids[i].hashCode(), mask);
+            while (tableKeys[s] != null) s = (s + 1) & mask;
+            tableKeys[s] = ids[i];
+            tableIndexes[s] = i;
+        }
+    }
+
+    // patched copy: same ids and id table, new per-slot arrays
+    private ItemLifestealIndex(ItemLifestealIndex base, Item[] items, float[] lifesteal, float[] ruleLifesteal, long registryGeneration) {
+        this.ids = base.ids;
+        this.items = items;
+        this.assetCount = base.assetCount;
+        this.lifesteal = lifesteal;
+        this.ruleLifesteal = ruleLifesteal;
+        this.rules = base.rules;
+        this.registryGeneration = registryGeneration;
+        this.tableKeys = base.tableKeys;
+        this.tableIndexes = base.tableIndexes;
+    }
+
+    /**
+     * Build a table for the given asset items (in asset-map order) joined with the current registry.
+     * Items with duplicate or missing ids are skipped.
+     */
+    @Nonnull
+    public static ItemLifestealIndex build(@Nonnull List<Item> assetItems) {
+        LifestealRegistry.Snapshot registry = LifestealRegistry.snapshot();
+        List<String> ids = new ArrayList<>(assetItems.size() + registry.size());
+        List<Item> items = new ArrayList<>(assetItems.size());
+        Set<String> seen = new HashSet<>();
+        for (Item it : assetItems) {
+            String id = it.getId();
+            if (id == null || !seen.add(id)) continue;
+            ids.add(id);
+            items.add(it);
+        }
+        int assetCount = ids.size();
+        registry.forEach((id, v) -> {
+            if (seen.add(id)) ids.add(id);
+        });
+        return new ItemLifestealIndex(ids.toArray(new String[0]), items.toArray(new Item[0]), assetCount, registry);
+    }
+
+    /**
+     * Currently published table.
+     */
+    @Nonnull
+    public static ItemLifestealIndex current() {
+        return current;
+    }
+
+    public static void publish(@Nonnull ItemLifestealIndex index) {
+        current = index;
+    }
+
+    /**
+     * Rebuild the published table against the current registry and rules, keeping the asset order.
+     * No reflection: one registry lookup and one rule evaluation per item.
+     */
+    public static void refresh() {
+        ItemLifestealIndex old = current;
+        List<Item> assetItems = new ArrayList<>(old.assetCount);
+        for (int i = 0; i < old.assetCount; i++) assetItems.add(old.items[i]);
+        current = build(assetItems);
+    }
+
+    /**
+     * This table with only the touched slots rewritten: changedItems replace the asset (and its rule
+     * result) under ids the table already has, and the ids in upserts / removals re-read their value
+     * from registry, which must be the table that diff was published as (LifestealRegistry.update).
+     * Returns null when a full build() is needed instead: an id the table does not know, a rule reload
+     * since this table was built, or another registry publish between this table and the diff.
+     */
+    @Nullable
+    public ItemLifestealIndex patch(@Nonnull Map<String, Item> changedItems, @Nonnull Collection<String> upserts,
+                                    @Nonnull Collection<String> removals, @Nonnull LifestealRegistry.Snapshot registry) {
+        long expected = registryGeneration + (upserts.isEmpty() && removals.isEmpty() ? 0 : 1);
+        if (registry.generation() != expected || LifestealRules.current() != rules) return null;
+
+        Item[] nextItems = items;
+        float[] nextRules = ruleLifesteal;
+        if (!changedItems.isEmpty()) {
+            nextItems = Arrays.copyOf(items, items.length);
+            nextRules = Arrays.copyOf(ruleLifesteal, ruleLifesteal.length);
+            for (Map.Entry<String, Item> e : changedItems.entrySet()) {
+                int i = lookup(e.getKey());
+                if (i < 0 || i >= assetCount) return null;
+                nextItems[i] = e.getValue();
+                nextRules[i] = rules.evaluate(e.getValue(), ids[i]);
+            }
+        }
+        float[] nextLifesteal = Arrays.copyOf(lifesteal, lifesteal.length);
+        for (String id : removals) {
+            int i = id == null ? -1 : lookup(id);
+            if (i >= 0) nextLifesteal[i] = NO_LIFESTEAL; // a registry-only id keeps its (now empty) slot until the next build
+        }
+        for (String id : upserts) {
+            int i = lookup(id);
+            if (i < 0) return null;
+            double v = registry.get(ids[i]);
+            nextLifesteal[i] = Double.isNaN(v) ? NO_LIFESTEAL : (float) v;
+        }
+        return new ItemLifestealIndex(this, nextItems, nextLifesteal, nextRules, registry.generation());
+    }
+
+    /**
+     * True if this table reflects the registry snapshot that is published right now.
+     */
+    public boolean isCurrent() {
+        return registryGeneration == LifestealRegistry.generation();
+    }
+
+    /**
+     * Dense index for an item id, or -1 if the table does not know it.
+     */
+    public int indexOf(@Nullable String itemId) {
+        if (itemId == null) return -1;
+        int way = (System.identityHashCode(itemId) & (CACHE_SETS - 1)) << 1;
+        int index = cached(itemId, way);
+        if (index != MISS) return index;
+        index = cached(itemId, way + 1);
+        if (index != MISS) return index;
+
+        index = lookup(itemId);
+        int victim = way + (cacheIds[way] == null ? 0 : cacheIds[way + 1] == null ? 1 : cacheVictim++ & 1);
+        int stamp = (int) CACHE_STAMP.getVolatile(cacheStamps, victim);
+        if ((stamp & 1) == 0 && CACHE_STAMP.compareAndSet(cacheStamps, victim, stamp, stamp + 1)) {
+            cacheIds[victim] = itemId;
+            cacheIndexes[victim] = index;
+            CACHE_STAMP.setRelease(cacheStamps, victim, stamp + 2);
+        }
+        return index;
+    }
+
+    // index cached for itemId in this way, or MISS
+    private int cached(String itemId, int way) {
+        int stamp = (int) CACHE_STAMP.getAcquire(cacheStamps, way);
+        if ((stamp & 1) != 0 || cacheIds[way] != itemId) return MISS;
+        int index = cacheIndexes[way];
+        VarHandle.acquireFence();
+        return cacheStamps[way] == stamp ? index : MISS;
+    }
+
+    /**
+     * Lifesteal for an item id, or NO_LIFESTEAL.
+     */
+    public float lifesteal(@Nullable String itemId) {
+        int index = indexOf(itemId);
+        return index < 0 ? NO_LIFESTEAL : lifesteal[index];
+    }
+
+    public float lifestealAt(int index) {
+        return lifesteal[index];
+    }
+
+    /**
+     * LifestealRules result for the asset at index (index < assetCount()); 0 if no rule matched.
+     */
+    public float ruleLifestealAt(int index) {
+        return ruleLifesteal[index];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int assetCount() {
+        return assetCount;
+    }
+
+    @Nonnull
+    public String idAt(int index) {
+        return ids[index];
+    }
+
+    @Nonnull
+    public Item itemAt(int index) {
+        return items[index];
+    }
+
+    private int lookup(String itemId) {
+        int mask = tableKeys.length - 1;
+        int s = LifestealRegistry.Snapshot.slot(itemId.hashCode(), mask);
+        for (;;) {
+            String key = tableKeys[s];
+            if (key == null) return -1;
+            if (key.equals(itemId)) return tableIndexes[s];
+            s = (s + 1) & mask;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.myplugin;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One locale's translations as compiled at build time by CompileLangBundlesTask (buildSrc).
+ *
+ * File layout (big-endian):
+ *   int magic, int version, int entryCount
+ *   entryCount x { int keyOffset, int valueOffset }, sorted by key
+ *   string table: { int byteLength, UTF-8 bytes }, each distinct string once
+ *
+ * - The bundle is read from the jar once into a single array wrapped in a ByteBuffer; nothing is
+ *   parsed up front. indexOf(key) binary-searches the entries and compares the key bytes in place
+ *   (the build only accepts ASCII keys, so chars compare directly against bytes).
+ * - A value is decoded to a String the first time it is asked for and kept; its compiled
+ *   MessageTemplate likewise. Values nobody uses never reach the heap as objects.
+ */
+final class LangBundleFile {
+    // Keep in sync with CompileLangBundlesTask
+    private static final int MAGIC = 0x4C4E4742; // "LNGB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int ENTRY_BYTES = 8;
+
+    private final ByteBuffer buf;
+    private final byte[] bytes;
+    private final int size;
+    private final String[] decoded;
+    private volatile MessageTemplate[] templates;
+
+    private LangBundleFile(byte[] bytes) {
+        this.bytes = bytes;
+        this.buf = ByteBuffer.wrap(bytes);
+        this.size = buf.getInt(8);
+        this.decoded = new String[size];
+    }
+
+    /**
+     * The bundled langfiles/&lt;locale&gt;.langbin, or null if the jar has none for this locale
+     * (e.g. running from the IDE without the Gradle resources) or it is from another format version.
+     */
+    @Nullable
+    static LangBundleFile openResource(@Nonnull String locale) {
+        try (InputStream in = LangBundleFile.class.getClassLoader().getResourceAsStream("langfiles/" + locale + ".langbin")) {
+            if (in == null) return null;
+            byte[] bytes = in.readAllBytes();
+            if (bytes.length < HEADER_BYTES) return null;
+            ByteBuffer header = ByteBuffer.wrap(bytes);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                System.out.println("[LangBundleFile] ignoring " + locale + ".langbin: unknown format");
+                return null;
+            }
+            if (HEADER_BYTES + (long) header.getInt(8) * ENTRY_BYTES > bytes.length) {
+                System.out.println("[LangBundleFile] ignoring " + locale + ".langbin: truncated");
+                return null;
+            }
+            return new LangBundleFile(bytes);
+        } catch (IOException e) {
+            System.out.println("[LangBundleFile] could not read " + locale + ".langbin: " + e);
+            return null;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Entry index of fullKey, or -1.
+     */
+    int indexOf(@Nonnull String fullKey) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(fullKey, buf.getInt(HEADER_BYTES + mid * ENTRY_BYTES));
+            if (c == 0) return mid;
+            if (c < 0) hi = mid - 1;
+            else lo = mid + 1;
+        }
+        return -1;
+    }
+
+    @Nonnull
+    String valueAt(int index) {
+        String v = decoded[index];
+        if (v == null) {
+            int offset = buf.getInt(HEADER_BYTES + index * ENTRY_BYTES + 4);
+            v = new String(bytes, offset + 4, buf.getInt(offset), StandardCharsets.UTF_8);
+            decoded[index] = v; // benign race: equal strings
+        }
+        return v;
+    }
+
+    @Nonnull
+    MessageTemplate templateAt(int index) {
+        MessageTemplate[] t = templates;
+        if (t == null) {
+            synchronized (this) {
+                t = templates;
+                if (t == null) templates = t = new MessageTemplate[size];
+            }
+        }
+        MessageTemplate m = t[index];
+        if (m == null) {
+            m = MessageTemplate.compile(valueAt(index));
+            t[index] = m;
+        }
+        return m;
+    }
+
+    /**
+     * Bytes held for this locale: the bundle itself plus the decoded-value and template arrays
+     * (the decoded strings are counted by decodedStringBytes()).
+     */
+    long bytes() {
+        long n = StringPool.align(16L + bytes.length) + StringPool.align(16L + 4L * size) + 48;
+        if (templates != null) n += StringPool.align(16L + 4L * size);
+        return n;
+    }
+
+    long decodedStringBytes() {
+        long n = 0;
+        for (String s : decoded) {
+            if (s != null) n += StringPool.sizeOf(s);
+        }
+        return n;
+    }
+
+    private int compare(String key, int offset) {
+        int len = buf.getInt(offset);
+        int start = offset + 4;
+        int n = Math.min(key.length(), len);
+        for (int i = 0; i < n; i++) {
+            int c = key.charAt(i) - (bytes[start + i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return key.length() - len;
+    }
+}
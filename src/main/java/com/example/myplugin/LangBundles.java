@@ -0,0 +1,416 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.server.core.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lazily loaded translations from langfiles/&lt;locale&gt;/&lt;file&gt;.lang.
+ *
+ * - Keys are "&lt;file&gt;.&lt;key&gt;" as in the engine (e.g. "server.commands.help.desc").
+ * - A locale is loaded the first time something asks for it; en-US is the only fallback, so a
+ *   missing key resolves through locale -> en-US without copying en-US entries into the locale.
+ * - The jar carries the bundled files compiled at build time (compileLangBundles) as one
+ *   LangBundleFile per locale: no parsing at startup, values decoded only when used.
+ * - A .lang file under the root directory set with setRoot(...) replaces the bundled entries with
+ *   that file's prefix. Those (and the bundled text files when the jar has no compiled bundle, e.g.
+ *   in the IDE) are parsed into flat open-addressing tables (hashes / keys / values arrays, no map
+ *   entries); lookups hash the part after the file prefix in place, so get(...) does not allocate.
+ * - Parsed keys and values go through one shared StringPool: locales reuse the en-US key instances
+ *   and any untranslated values.
+ * - Parsing follows the engine's LangFileParser: '#' comments, "key = value", a trailing '\'
+ *   continues the value on the next line, surrounding quotes are stripped and \n / \t are escapes.
+ * - template(...) returns the value compiled into a MessageTemplate, compiled once per value.
+ * - report() estimates resident memory per loaded locale for /langstats.
+ */
+public final class LangBundles {
+    public static final String DEFAULT_LOCALE = "en-US";
+
+    // Files loaded per locale; their names are the key prefixes (lifesteal.lang is the plugin's own)
+    static final String[] FILES = { "server", "wordlists", "lifesteal" };
+
+    private static final ConcurrentHashMap<String, Bundle> LOADED = new ConcurrentHashMap<>();
+    private static volatile StringPool pool = new StringPool();
+    private static volatile Path root;
+    private static volatile Bundle defaultBundle;
+
+    private LangBundles() {}
+
+    /**
+     * Directory with one sub-directory per locale (usually the plugin data directory's langfiles);
+     * files missing there are read from the jar. Drops already loaded locales.
+     */
+    public static void setRoot(@Nullable Path langRoot) {
+        root = langRoot;
+        clear();
+    }
+
+    /**
+     * Forget every loaded locale (and the string pool); the next lookup re-reads the files.
+     */
+    public static synchronized void clear() {
+        LOADED.clear();
+        defaultBundle = null;
+        pool = new StringPool();
+    }
+
+    /**
+     * Translation for key in locale, falling back to en-US; null if neither has it.
+     */
+    @Nullable
+    public static String get(@Nullable String locale, @Nonnull String key) {
+        if (locale != null && !DEFAULT_LOCALE.equals(locale)) {
+            String value = bundle(locale).find(key);
+            if (value != null) return value;
+        }
+        return defaultBundle().find(key);
+    }
+
+    /**
+     * Like get(...) but returns the key itself when no locale has it, so a missing entry is visible in-game.
+     */
+    @Nonnull
+    public static String getOrKey(@Nullable String locale, @Nonnull String key) {
+        String value = get(locale, key);
+        return value != null ? value : key;
+    }
+
+    @Nonnull
+    public static Message message(@Nullable String locale, @Nonnull String key) {
+        return Message.raw(getOrKey(locale, key));
+    }
+
+    /**
+     * Compiled template for key in locale (falling back to en-US, then to the key itself).
+     * Each lang value is compiled on first use and kept next to it.
+     */
+    @Nonnull
+    public static MessageTemplate template(@Nullable String locale, @Nonnull String key) {
+        if (locale != null && !DEFAULT_LOCALE.equals(locale)) {
+            MessageTemplate t = bundle(locale).template(key);
+            if (t != null) return t;
+        }
+        MessageTemplate t = defaultBundle().template(key);
+        return t != null ? t : MessageTemplate.compile(key);
+    }
+
+    /**
+     * Render key for locale with args into a Message.
+     */
+    @Nonnull
+    public static Message message(@Nullable String locale, @Nonnull String key, @Nullable MessageTemplate.Args args) {
+        return template(locale, key).toMessage(args);
+    }
+
+    /**
+     * One line per loaded locale with its key count and estimated resident memory, plus the shared pool.
+     */
+    @Nonnull
+    public static List<String> report() {
+        Map<String, Bundle> sorted = new TreeMap<>(LOADED);
+        StringPool p = pool;
+        List<String> out = new ArrayList<>(sorted.size() + 2);
+        long total = 0;
+        for (Bundle b : sorted.values()) {
+            long tables = b.tableBytes();
+            long strings = b.stringBytes();
+            total += tables + strings;
+            out.add(String.format("lang %s: %d keys%s, ~%s resident (tables %s, own strings %s)",
+                    b.locale, b.entries, b.bin != null ? " (compiled)" : "", kib(tables + strings), kib(tables), kib(strings)));
+        }
+        out.add(String.format("lang pool: %d strings, %s + %s table; total ~%s across %d locales",
+                p.size(), kib(p.stringBytes()), kib(p.tableBytes()), kib(total + p.tableBytes()), sorted.size()));
+        return out;
+    }
+
+    private static String kib(long bytes) {
+        return String.format("%.1f KiB", bytes / 1024.0);
+    }
+
+    @Nonnull
+    private static Bundle defaultBundle() {
+        Bundle b = defaultBundle;
+        if (b == null) {
+            b = bundle(DEFAULT_LOCALE);
+            defaultBundle = b;
+        }
+        return b;
+    }
+
+    @Nonnull
+    private static Bundle bundle(@Nonnull String locale) {
+        Bundle b = LOADED.get(locale);
+        return b != null ? b : LOADED.computeIfAbsent(locale, LangBundles::load);
+    }
+
+    private static Bundle load(String locale) {
+        long started = System.nanoTime();
+        StringPool p = pool;
+        long[] owned = new long[1];
+        LangBundleFile bin = LangBundleFile.openResource(locale);
+        List<String> names = new ArrayList<>(FILES.length);
+        List<Table> tables = new ArrayList<>(FILES.length);
+        for (String file : FILES) {
+            try (BufferedReader in = open(locale, file, bin == null)) {
+                if (in == null) continue;
+                Table table = parse(in, p, owned);
+                if (table.size == 0) continue;
+                names.add(file);
+                tables.add(table);
+            } catch (LangParseException e) {
+                System.out.println("[LangBundles] " + locale + "/" + file + ".lang line " + e.getLine() + ": " + e.getMessage() + "; file skipped");
+            } catch (Throwable t) {
+                System.out.println("[LangBundles] could not read " + locale + "/" + file + ".lang: " + t);
+            }
+        }
+        Bundle b = new Bundle(locale, names.toArray(new String[0]), tables.toArray(new Table[0]), owned[0], bin);
+        System.out.println("[LangBundles] loaded " + locale + ": " + b.entries + " keys in "
+                + (System.nanoTime() - started) / 1_000_000 + "ms");
+        return b;
+    }
+
+    // the root directory's copy, else (when bundledText) the text file in the jar
+    @Nullable
+    private static BufferedReader open(String locale, String file, boolean bundledText) throws IOException {
+        String relative = locale + "/" + file + ".lang";
+        Path dir = root;
+        if (dir != null) {
+            Path f = dir.resolve(relative);
+            if (Files.isRegularFile(f)) return Files.newBufferedReader(f, StandardCharsets.UTF_8);
+        }
+        if (!bundledText) return null;
+        InputStream in = LangBundles.class.getClassLoader().getResourceAsStream("langfiles/" + relative);
+        return in == null ? null : new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse one .lang file into a table, interning keys and values. Duplicate keys, lines without
+     * '=' and empty keys / values are errors, as in the engine.
+     */
+    static Table parse(@Nonnull BufferedReader in, @Nonnull StringPool p, long[] owned) throws IOException, LangParseException {
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        String key = null;
+        int keyLine = 0;
+        StringBuilder value = null;
+        int lineNo = 0;
+        for (String raw; (raw = in.readLine()) != null; ) {
+            lineNo++;
+            String line = raw.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            if (key == null) {
+                int eq = line.indexOf('=');
+                if (eq < 0) throw new LangParseException("missing '=' in key-value line", lineNo);
+                key = line.substring(0, eq).trim();
+                keyLine = lineNo;
+                if (key.isEmpty()) throw new LangParseException("empty key", lineNo);
+                String first = line.substring(eq + 1).trim();
+                if (first.isEmpty()) throw new LangParseException("empty value for " + key, lineNo);
+                value = new StringBuilder();
+                if (first.charAt(first.length() - 1) == '\\') {
+                    value.append(first, 0, first.length() - 1);
+                    continue;
+                }
+                value.append(literal(first));
+            } else {
+                boolean more = line.charAt(line.length() - 1) == '\\';
+                value.append((more ? line.substring(0, line.length() - 1) : line).trim());
+                if (more) continue;
+            }
+            keys.add(p.intern(key, owned));
+            values.add(p.intern(escape(value), owned));
+            lines.add(keyLine);
+            key = null;
+            value = null;
+        }
+        if (key != null) throw new LangParseException("unexpected end of file in value of " + key, lineNo);
+        return Table.build(keys, values, lines);
+    }
+
+    private static String literal(String s) {
+        return s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"' ? s.substring(1, s.length() - 1) : s;
+    }
+
+    private static String escape(StringBuilder sb) {
+        return sb.toString().replace("\\n", "\n").replace("\\t", "\t");
+    }
+
+    /**
+     * All files of one locale: parsed tables by file prefix, then the compiled bundle for every
+     * prefix without a table.
+     */
+    static final class Bundle {
+        final String locale;
+        final String[] fileNames;
+        final Table[] tables;
+        final long ownedStringBytes; // strings this locale added to the pool first
+        @Nullable
+        final LangBundleFile bin;
+        final int entries;
+
+        Bundle(String locale, String[] fileNames, Table[] tables, long ownedStringBytes, @Nullable LangBundleFile bin) {
+            this.locale = locale;
+            this.fileNames = fileNames;
+            this.tables = tables;
+            this.ownedStringBytes = ownedStringBytes;
+            this.bin = bin;
+            int n = bin == null ? 0 : bin.size();
+            for (Table t : tables) n += t.size;
+            this.entries = n;
+        }
+
+        @Nullable
+        String find(@Nonnull String fullKey) {
+            Table t = tableFor(fullKey);
+            if (t != null) {
+                int slot = t.slotOf(fullKey, fullKey.indexOf('.') + 1);
+                return slot < 0 ? null : t.values[slot];
+            }
+            int index = bin == null ? -1 : bin.indexOf(fullKey);
+            return index < 0 ? null : bin.valueAt(index);
+        }
+
+        @Nullable
+        MessageTemplate template(@Nonnull String fullKey) {
+            Table t = tableFor(fullKey);
+            if (t != null) {
+                int slot = t.slotOf(fullKey, fullKey.indexOf('.') + 1);
+                return slot < 0 ? null : t.templateAt(slot);
+            }
+            int index = bin == null ? -1 : bin.indexOf(fullKey);
+            return index < 0 ? null : bin.templateAt(index);
+        }
+
+        @Nullable
+        private Table tableFor(String fullKey) {
+            int dot = fullKey.indexOf('.');
+            if (dot <= 0) return null;
+            for (int i = 0; i < fileNames.length; i++) {
+                String f = fileNames[i];
+                if (f.length() == dot && fullKey.startsWith(f)) return tables[i];
+            }
+            return null;
+        }
+
+        long tableBytes() {
+            long n = 64; // this object and its two arrays
+            for (Table t : tables) n += t.bytes();
+            if (bin != null) n += bin.bytes();
+            return n;
+        }
+
+        long stringBytes() {
+            return ownedStringBytes + (bin == null ? 0 : bin.decodedStringBytes());
+        }
+    }
+
+    /**
+     * Open-addressing key -> value table, at most 3/4 full. Keys are hashed with String.hashCode()
+     * so stored keys reuse their cached hash and lookups can hash a region of the full key.
+     */
+    static final class Table {
+        final int[] hashes;
+        final String[] keys;
+        final String[] values;
+        final int size;
+        // compiled values by slot, allocated on the first template request
+        private volatile MessageTemplate[] templates;
+
+        private Table(int capacity, int size) {
+            this.hashes = new int[capacity];
+            this.keys = new String[capacity];
+            this.values = new String[capacity];
+            this.size = size;
+        }
+
+        static Table build(List<String> keys, List<String> values, List<Integer> lines) throws LangParseException {
+            int capacity = 2;
+            while (capacity * 3 < keys.size() * 4 + 4) capacity <<= 1;
+            Table t = new Table(capacity, keys.size());
+            int mask = capacity - 1;
+            for (int k = 0; k < keys.size(); k++) {
+                String key = keys.get(k);
+                int h = key.hashCode();
+                int i = StringPool.spread(h) & mask;
+                for (; t.keys[i] != null; i = (i + 1) & mask) {
+                    if (t.hashes[i] == h && t.keys[i].equals(key)) throw new LangParseException("duplicate key " + key, lines.get(k));
+                }
+                t.hashes[i] = h;
+                t.keys[i] = key;
+                t.values[i] = values.get(k);
+            }
+            return t;
+        }
+
+        /**
+         * Slot of the key s.substring(from), or -1; hashes the region in place.
+         */
+        int slotOf(@Nonnull String s, int from) {
+            int len = s.length() - from;
+            int h = 0;
+            for (int i = from; i < s.length(); i++) h = 31 * h + s.charAt(i);
+            int mask = keys.length - 1;
+            for (int i = StringPool.spread(h) & mask; ; i = (i + 1) & mask) {
+                String k = keys[i];
+                if (k == null) return -1;
+                if (hashes[i] == h && k.length() == len && s.regionMatches(from, k, 0, len)) return i;
+            }
+        }
+
+        // templates are immutable, so a lost race only compiles a value twice
+        @Nonnull
+        MessageTemplate templateAt(int slot) {
+            MessageTemplate[] t = templates;
+            if (t == null) {
+                synchronized (this) {
+                    t = templates;
+                    if (t == null) templates = t = new MessageTemplate[keys.length];
+                }
+            }
+            MessageTemplate m = t[slot];
+            if (m == null) {
+                m = MessageTemplate.compile(values[slot]);
+                t[slot] = m;
+            }
+            return m;
+        }
+
+        long bytes() {
+            long n = 24 + StringPool.align(16L + 4L * hashes.length) + 2 * StringPool.align(16L + 4L * keys.length);
+            if (templates != null) n += StringPool.align(16L + 4L * keys.length);
+            return n;
+        }
+    }
+
+    /**
+     * Malformed .lang content at a 1-based line.
+     */
+    static final class LangParseException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int line;
+
+        LangParseException(String message, int line) {
+            super(message);
+            this.line = line;
+        }
+
+        int getLine() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.myplugin;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram (nanoseconds) with log-linear buckets.
+ *
+ * - Values below 8 ns get a bucket each; above that every power of two is split into 8 sub-buckets,
+ *   so a reported percentile is at most 12.5% above the true value.
+ * - record(...) is one AtomicLongArray increment plus a LongAdder add; no locks, no allocation.
+ * - snapshot() copies the counters; snapshots can be subtracted to get the activity of a window.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // highest bit index of a positive long is 62
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        totalNanos.add(nanos);
+    }
+
+    @Nonnull
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        return new Snapshot(copy, n, totalNanos.sum());
+    }
+
+    static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (msb - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (msb - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // largest value that falls into the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int msb = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << (msb - SUB_BITS);
+        return lower + (1L << (msb - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Immutable copy of the counters.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0.0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile (0..1), or 0 if nothing was recorded.
+         */
+        public long percentile(double quantile) {
+            if (count == 0) return 0L;
+            long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return upperBound(i);
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        public long maxNanos() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) return upperBound(i);
+            }
+            return 0L;
+        }
+
+        /**
+         * Activity between the earlier snapshot and this one.
+         */
+        @Nonnull
+        public Snapshot since(@Nonnull Snapshot earlier) {
+            long[] diff = new long[counts.length];
+            for (int i = 0; i < diff.length; i++) diff[i] = counts[i] - earlier.counts[i];
+            return new Snapshot(diff, count - earlier.count, totalNanos - earlier.totalNanos);
+        }
+
+        /**
+         * e.g. "n=1200 mean=850ns p50=767ns p90=1.5us p99=6.1us p99.9=24.5us max=57.3us"
+         */
+        @Nonnull
+        public String describe() {
+            if (count == 0) return "n=0";
+            return "n=" + count
+                    + " mean=" + formatNanos((long) getMeanNanos())
+                    + " p50=" + formatNanos(percentile(0.50))
+                    + " p90=" + formatNanos(percentile(0.90))
+                    + " p99=" + formatNanos(percentile(0.99))
+                    + " p99.9=" + formatNanos(percentile(0.999))
+                    + " max=" + formatNanos(maxNanos());
+        }
+
+        static String formatNanos(long nanos) {
+            if (nanos < 1_000L) return nanos + "ns";
+            if (nanos < 1_000_000L) return String.format("%.1fus", nanos / 1_000.0);
+            if (nanos < 1_000_000_000L) return String.format("%.1fms", nanos / 1_000_000.0);
+            return String.format("%.2fs", nanos / 1_000_000_000.0);
+        }
+    }
+}
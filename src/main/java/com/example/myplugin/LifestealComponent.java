@@ -0,0 +1,78 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nullable;
+
+/**
+ * Lifesteal resolved for an attacker's held item, cached on the entity.
+ *
+ * - Added by LifestealOnDamage the first time an entity lands a hit, then read on every later hit
+ *   instead of materializing the entity and resolving its held item.
+ * - Marked stale when the active hotbar slot or the inventory changes (LifestealSystems), when the
+ *   registry publishes a new table (generation mismatch) and when a new ItemLifestealIndex is
+ *   published (asset reload); the next hit re-resolves it.
+ * - Runtime-only: registered without a codec, so it is never saved with the entity.
+ */
+public final class LifestealComponent implements Component<EntityStore> {
+    private static ComponentType<EntityStore, LifestealComponent> componentType;
+
+    @Nullable
+    private String itemId;
+    private float lifesteal;
+    private long generation;
+    @Nullable
+    private ItemLifestealIndex resolvedAgainst; // null = stale
+
+    /**
+     * Registered type, or null if LifestealPlugin has not registered it (callers then skip the cache).
+     */
+    @Nullable
+    public static ComponentType<EntityStore, LifestealComponent> getComponentType() {
+        return componentType;
+    }
+
+    static void setComponentType(ComponentType<EntityStore, LifestealComponent> type) {
+        componentType = type;
+    }
+
+    /**
+     * Held item id at the last refresh, or null if the entity held nothing.
+     */
+    @Nullable
+    public String getItemId() {
+        return itemId;
+    }
+
+    public float getLifesteal() {
+        return lifesteal;
+    }
+
+    /**
+     * True if refreshed since the last equip / inventory change and against the current registry table and index.
+     */
+    public boolean isCurrent() {
+        return resolvedAgainst != null && resolvedAgainst == ItemLifestealIndex.current()
+                && generation == LifestealRegistry.generation();
+    }
+
+    void set(@Nullable String itemId, float lifesteal, long generation, @Nullable ItemLifestealIndex index) {
+        this.itemId = itemId;
+        this.lifesteal = lifesteal;
+        this.generation = generation;
+        this.resolvedAgainst = index;
+    }
+
+    void invalidate() {
+        resolvedAgainst = null;
+    }
+
+    @Override
+    public LifestealComponent clone() {
+        LifestealComponent copy = new LifestealComponent();
+        copy.set(itemId, lifesteal, generation, resolvedAgainst);
+        return copy;
+    }
+}
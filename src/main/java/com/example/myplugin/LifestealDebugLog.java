@@ -0,0 +1,188 @@
+package com.example.myplugin;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous debug log for the damage hot path.
+ *
+ * - Callers guard every record with {@code if (LifestealDebugLog.enabled)}, so with debug off the
+ *   cost is one branch.
+ * - record(...) copies a fixed-size record into a lock-free ring buffer (no formatting, no I/O).
+ *   When the ring is full the record is dropped and counted.
+ * - Each reason code is rate-limited to RECORDS_PER_WINDOW per ~1s window; the rest are counted
+ *   and reported as "suppressed" by the writer.
+ * - A daemon thread drains the ring, formats the records and prints them in one batch.
+ *
+ * Enabled from the "debugMode" flag in config.json (PluginConfig.isDebugMode()); follows config reloads.
+ */
+public final class LifestealDebugLog {
+
+    // Reason codes (indexes into REASON_TEXT)
+    public static final int CANCELLED = 0;
+    public static final int ZERO_DAMAGE = 1;
+    public static final int NOT_ENTITY_SOURCE = 2;
+    public static final int INVALID_REF = 3;
+    public static final int NOT_LIVING_ENTITY = 4;
+    public static final int NO_HELD_ITEM = 5;
+    public static final int ZERO_LIFESTEAL = 6;
+    public static final int NO_STAT_MAP = 7;
+    public static final int APPLIED = 8;
+    public static final int RATE_CAPPED = 9;
+
+    private static final String[] REASON_TEXT = {
+            "damageEvent cancelled",
+            "damageAmount <= 0",
+            "no attacker for this damage source",
+            "attackerRef invalid",
+            "attacker is not LivingEntity",
+            "no held item found",
+            "lifesteal == 0",
+            "no EntityStatMap on attacker",
+            "applied",
+            "heal cap reached for this window"
+    };
+
+    private static final int CAPACITY = 4096; // power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int RECORDS_PER_WINDOW = 20;
+    private static final long FLUSH_INTERVAL_NANOS = 250_000_000L;
+
+    /** Hot-path gate; read once per potential record. */
+    public static volatile boolean enabled;
+
+    // Ring buffer: parallel arrays, one slot per record. published[slot] holds the sequence
+    // number of the record in that slot once it is fully written.
+    private static final int[] reasons = new int[CAPACITY];
+    private static final int[] attackers = new int[CAPACITY];
+    private static final float[] damages = new float[CAPACITY];
+    private static final float[] lifesteals = new float[CAPACITY];
+    private static final float[] heals = new float[CAPACITY];
+    private static final Object[] items = new Object[CAPACITY];
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong();
+    private static volatile long head;
+
+    // Per-reason rate limiting
+    private static final AtomicLongArray windows = new AtomicLongArray(REASON_TEXT.length);
+    private static final AtomicIntegerArray admitted = new AtomicIntegerArray(REASON_TEXT.length);
+    private static final AtomicLongArray suppressed = new AtomicLongArray(REASON_TEXT.length);
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) published.set(i, -1L);
+    }
+
+    private LifestealDebugLog() {}
+
+    /**
+     * Turn debug logging on or off. Starts the writer thread the first time it is enabled.
+     */
+    public static synchronized void setEnabled(boolean on) {
+        if (on && writer == null) {
+            writer = new Thread(LifestealDebugLog::drainLoop, "Lifesteal-DebugLog");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        enabled = on;
+    }
+
+    /**
+     * Stop the writer thread after flushing what is left in the ring.
+     */
+    public static synchronized void shutdown() {
+        enabled = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer = null;
+        }
+    }
+
+    public static void record(int reason) {
+        record(reason, -1, 0f, 0f, 0f, null);
+    }
+
+    public static void record(int reason, int attackerIndex, float damage, float lifesteal, float heal, Object item) {
+        if (!admit(reason)) return;
+
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        int slot = (int) seq & MASK;
+        reasons[slot] = reason;
+        attackers[slot] = attackerIndex;
+        damages[slot] = damage;
+        lifesteals[slot] = lifesteal;
+        heals[slot] = heal;
+        items[slot] = item;
+        published.lazySet(slot, seq);
+    }
+
+    private static boolean admit(int reason) {
+        long window = System.nanoTime() >>> 30;
+        if (windows.get(reason) != window) {
+            // Racy reset is fine: this only shapes sampling.
+            windows.set(reason, window);
+            admitted.set(reason, 0);
+        }
+        if (admitted.incrementAndGet(reason) > RECORDS_PER_WINDOW) {
+            suppressed.incrementAndGet(reason);
+            return false;
+        }
+        return true;
+    }
+
+    private static void drainLoop() {
+        StringBuilder sb = new StringBuilder(4096);
+        while (!Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+            drain(sb);
+        }
+        drain(sb);
+    }
+
+    private static void drain(StringBuilder sb) {
+        sb.setLength(0);
+        long h = head;
+        for (;;) {
+            int slot = (int) h & MASK;
+            if (published.get(slot) != h) break;
+            appendRecord(sb, slot);
+            items[slot] = null;
+            h++;
+            head = h;
+        }
+        for (int reason = 0; reason < REASON_TEXT.length; reason++) {
+            long n = suppressed.getAndSet(reason, 0);
+            if (n > 0) {
+                sb.append("[Lifesteal] suppressed ").append(n).append(" '")
+                        .append(REASON_TEXT[reason]).append("' records\n");
+            }
+        }
+        long d = dropped.getAndSet(0);
+        if (d > 0) sb.append("[Lifesteal] debug ring full, dropped ").append(d).append(" records\n");
+        if (sb.length() > 0) System.out.print(sb);
+    }
+
+    private static void appendRecord(StringBuilder sb, int slot) {
+        int reason = reasons[slot];
+        if (reason == APPLIED) {
+            sb.append(String.format("[Lifesteal] applied: attackerIndex=%d damage=%.2f lifesteal=%.3f heal=%.2f item=%s",
+                    attackers[slot], (double) damages[slot], (double) lifesteals[slot], (double) heals[slot], items[slot]));
+        } else {
+            sb.append("[Lifesteal] ").append(REASON_TEXT[reason]);
+            if (items[slot] != null) sb.append(" for item ").append(items[slot]);
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+/**
+ * Compact on-disk copy of the resolved item -> lifesteal table, used to skip the reflective scan on warm starts.
+ *
+ * File layout (big-endian):
+ *   int magic, int version, long assetFingerprint, int entryCount, int tableSize (power of two)
+ *   tableSize x { int stringOffset (-1 = empty), int idHash, double lifesteal }
+ *   string section: { short byteLength, UTF-8 bytes } per id
+ *
+ * The file is opened read-only with a MappedByteBuffer; get(id) probes the table and compares the
+ * id bytes in place, nothing is copied onto the heap.
+ *
+ * The fingerprint covers every item asset's id, pack, source path and the path's size / mtime, so
+ * editing, adding or removing an asset (or installing another pack) invalidates the file.
+ */
+public final class LifestealIndexFile {
+    private static final int MAGIC = 0x4C534958; // "LSIX"
+    // Bump when the file layout or the extraction heuristics change. 2: lifesteal stored as double, so warm
+    // starts publish exactly the values a scan would.
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int SLOT_BYTES = 16;
+
+    private final ByteBuffer buf;
+    private final long fingerprint;
+    private final int size;
+    private final int mask;
+    private final int stringsStart;
+
+    private LifestealIndexFile(ByteBuffer buf) {
+        this.buf = buf;
+        this.fingerprint = buf.getLong(8);
+        this.size = buf.getInt(16);
+        int tableSize = buf.getInt(20);
+        this.mask = tableSize - 1;
+        this.stringsStart = HEADER_BYTES + tableSize * SLOT_BYTES;
+    }
+
+    /**
+     * Map an existing index file, or null if it is missing, unreadable or from another format version.
+     */
+    @Nullable
+    public static LifestealIndexFile open(@Nonnull Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = ch.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) return null;
+            int tableSize = buf.getInt(20);
+            if (tableSize <= 0 || Integer.bitCount(tableSize) != 1) return null;
+            if (HEADER_BYTES + (long) tableSize * SLOT_BYTES > length) return null;
+            return new LifestealIndexFile(buf);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[LifestealIndexFile] ignoring unreadable index " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the table atomically (temp file + move).
+     */
+    public static void write(@Nonnull Path file, long fingerprint, @Nonnull Map<String, Double> values) throws IOException {
+        int tableSize = 8;
+        while (tableSize < values.size() * 2) tableSize <<= 1;
+        int mask = tableSize - 1;
+
+        byte[][] idBytes = new byte[values.size()][];
+        int stringBytes = 0;
+        int n = 0;
+        for (String id : values.keySet()) {
+            idBytes[n] = id.getBytes(StandardCharsets.UTF_8);
+            if (idBytes[n].length > Short.MAX_VALUE) throw new IOException("item id too long: " + id);
+            stringBytes += 2 + idBytes[n].length;
+            n++;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + tableSize * SLOT_BYTES + stringBytes);
+        out.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, fingerprint).putInt(16, values.size()).putInt(20, tableSize);
+        for (int s = 0; s < tableSize; s++) out.putInt(HEADER_BYTES + s * SLOT_BYTES, -1);
+
+        int stringsStart = HEADER_BYTES + tableSize * SLOT_BYTES;
+        int stringPos = 0;
+        n = 0;
+        for (Map.Entry<String, Double> e : values.entrySet()) {
+            int hash = e.getKey().hashCode();
+            int s = LifestealRegistry.Snapshot.slot(hash, mask);
+            while (out.getInt(HEADER_BYTES + s * SLOT_BYTES) != -1) s = (s + 1) & mask;
+            int at = HEADER_BYTES + s * SLOT_BYTES;
+            out.putInt(at, stringPos).putInt(at + 4, hash).putDouble(at + 8, e.getValue());
+            byte[] bytes = idBytes[n++];
+            out.putShort(stringsStart + stringPos, (short) bytes.length);
+            out.put(stringsStart + stringPos + 2, bytes);
+            stringPos += 2 + bytes.length;
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, out.array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Order-independent fingerprint of the item asset set (see class doc).
+     */
+    public static long fingerprint(@Nonnull Map<String, Item> items, @Nonnull DefaultAssetMap<String, Item> assetMap) {
+        long sum = VERSION;
+        for (String id : items.keySet()) {
+            long h = 0xcbf29ce484222325L;
+            h = fnv(h, id);
+            h = fnv(h, String.valueOf(assetMap.getAssetPack(id)));
+            Path path = assetMap.getPath(id);
+            if (path != null) {
+                h = fnv(h, path.toString());
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    h = mix(h ^ attrs.size());
+                    h = mix(h ^ attrs.lastModifiedTime().toMillis());
+                } catch (IOException | RuntimeException ignored) {
+                    // not stat-able (e.g. generated asset): id / pack / path still count
+                }
+            }
+            sum += mix(h);
+        }
+        return mix(sum ^ items.size());
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lifesteal recorded for the item id, or LifestealRegistry.ABSENT.
+     */
+    public double get(@Nonnull String itemId) {
+        int hash = itemId.hashCode();
+        byte[] want = null;
+        int s = LifestealRegistry.Snapshot.slot(hash, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            int at = HEADER_BYTES + s * SLOT_BYTES;
+            int offset = buf.getInt(at);
+            if (offset == -1) return LifestealRegistry.ABSENT;
+            if (buf.getInt(at + 4) == hash) {
+                if (want == null) want = itemId.getBytes(StandardCharsets.UTF_8);
+                if (idEquals(stringsStart + offset, want)) return buf.getDouble(at + 8);
+            }
+            s = (s + 1) & mask;
+        }
+        return LifestealRegistry.ABSENT;
+    }
+
+    private boolean idEquals(int pos, byte[] want) {
+        if (pos + 2 > buf.limit()) return false;
+        int len = buf.getShort(pos);
+        if (len != want.length || pos + 2 + len > buf.limit()) return false;
+        for (int i = 0; i < len; i++) {
+            if (buf.get(pos + 2 + i) != want[i]) return false;
+        }
+        return true;
+    }
+
+    private static long fnv(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h * 0x100000001b3L; // separator
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,435 @@
+package com.example.myplugin;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Binary journal of applied heals for balance audits; LifestealJournalExport turns it into CSV.
+ *
+ * - One fixed-size record per heal: tick, attacker index, item index, damage, lifesteal fraction
+ *   and heal. Records go straight into a memory-mapped segment file: a writer claims a slot with
+ *   one atomic increment and fills it with absolute puts; no lock, no formatting, no allocation.
+ * - The journal thread keeps a spare segment mapped, so rolling over is a pointer swap on the
+ *   writer's thread. The full segment is then sealed on the journal thread (compressed to .lsj.zst
+ *   when "compress" is on and zstd-jni loads). Records that find no segment to go to are dropped
+ *   and counted rather than waited for.
+ * - Item ids are numbered on first sight and the journal thread appends "index<TAB>itemId" to
+ *   items.tsv, so numbers stay stable across segments and restarts.
+ * - Off unless "lifestealJournal.enabled" is set in config.json; follows config reloads.
+ *
+ * Segment layout (little-endian): a HEADER_BYTES header (magic, version, record size, sequence,
+ * creation time, capacity) followed by RECORD_BYTES records. A record's marker is written last; a
+ * slot without it was never (fully) written and is skipped by readers.
+ */
+public final class LifestealJournal {
+    static final int MAGIC = 0x4C534A31; // "LSJ1"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 32;
+    static final int RECORD_MARKER = 0x52454331; // "REC1"
+    static final int MAX_SEGMENT_RECORDS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    // Record field offsets
+    static final int TICK = 0;
+    static final int ATTACKER = 8;
+    static final int ITEM = 12;
+    static final int DAMAGE = 16;
+    static final int FRACTION = 20;
+    static final int HEAL = 24;
+    static final int MARKER = 28;
+
+    static final String SEGMENT_SUFFIX = ".lsj";
+    static final String COMPRESSED_SUFFIX = ".lsj.zst";
+    static final String ITEMS_FILE = "items.tsv";
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final AtomicReference<Segment> active = new AtomicReference<>();
+    private static final AtomicReference<Segment> spare = new AtomicReference<>();
+    private static final ConcurrentHashMap<String, Integer> items = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextItem = new AtomicInteger();
+    private static final LongAdder dropped = new LongAdder();
+
+    private static volatile Path directory;
+
+    // journal thread only
+    private static Settings settings = Settings.DISABLED;
+    private static Path openDirectory;
+    private static long nextSequence;
+    private static boolean compress;
+
+    private static final ExecutorService JOURNAL_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Lifesteal-Journal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private LifestealJournal() {}
+
+    /**
+     * Where segments and items.tsv are written (usually <data>/journal). Takes effect on the next configure(...).
+     */
+    public static void setDirectory(@Nullable Path dir) {
+        directory = dir;
+    }
+
+    /**
+     * Apply journal settings on the journal thread: start, stop, or seal the current segment and
+     * reopen with the new settings. Unchanged settings are a no-op.
+     */
+    public static void configure(@Nonnull Settings next) {
+        try {
+            JOURNAL_EXECUTOR.execute(() -> apply(next));
+        } catch (RejectedExecutionException ignored) {
+            // shut down
+        }
+    }
+
+    /**
+     * Seal the open segment and stop the journal thread (plugin shutdown).
+     */
+    public static void shutdown() {
+        try {
+            JOURNAL_EXECUTOR.execute(LifestealJournal::close);
+        } catch (RejectedExecutionException ignored) {
+            return;
+        }
+        JOURNAL_EXECUTOR.shutdown();
+        try {
+            if (!JOURNAL_EXECUTOR.awaitTermination(10, TimeUnit.SECONDS)) JOURNAL_EXECUTOR.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static boolean isOpen() {
+        return active.get() != null;
+    }
+
+    /**
+     * Records dropped because no segment had room (rollover without a ready spare).
+     */
+    public static long droppedRecords() {
+        return dropped.sum();
+    }
+
+    /**
+     * Append one heal. Safe from any thread; returns immediately when the journal is off.
+     */
+    public static void record(long tick, int attacker, @Nonnull String itemId, float damage, float fraction, float heal) {
+        if (active.get() == null) return;
+        Integer known = items.get(itemId);
+        int item = known != null ? known : items.computeIfAbsent(itemId, LifestealJournal::newItem);
+        // a second attempt covers the writer whose slot was the first past a full segment
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Segment s = active.get();
+            if (s == null) return;
+            long slot = s.claimed.getAndIncrement();
+            if (slot < s.capacity) {
+                s.put((int) slot, tick, attacker, item, damage, fraction, heal);
+                return;
+            }
+            if (slot == s.capacity) rollOver(s);
+        }
+        dropped.increment();
+    }
+
+    // first sight of an item id; the line is written on the journal thread
+    private static Integer newItem(String itemId) {
+        int index = nextItem.getAndIncrement();
+        try {
+            JOURNAL_EXECUTOR.execute(() -> appendItem(index, itemId));
+        } catch (RejectedExecutionException ignored) {}
+        return index;
+    }
+
+    // Runs on the thread that claimed the first slot past the end, so once per segment
+    private static void rollOver(Segment full) {
+        Segment next = spare.getAndSet(null);
+        if (next != null && !active.compareAndSet(full, next)) spare.compareAndSet(null, next);
+        try {
+            JOURNAL_EXECUTOR.execute(() -> afterRollOver(full));
+        } catch (RejectedExecutionException ignored) {}
+    }
+
+    private static void afterRollOver(Segment full) {
+        if (active.get() == full) {
+            // no spare was ready: writers drop records until this one is mapped
+            Segment next = mapSegment();
+            if (next != null) active.compareAndSet(full, next);
+        }
+        seal(full);
+        if (active.get() == null) discard(spare.getAndSet(null));
+        else prepareSpare();
+    }
+
+    private static void apply(Settings next) {
+        Path dir = directory;
+        if (next.equals(settings) && (dir == null ? openDirectory == null : dir.equals(openDirectory))) return;
+        close();
+        settings = next;
+        openDirectory = dir;
+        if (!next.enabled()) return;
+        if (dir == null) {
+            System.out.println("[LifestealJournal] no journal directory set, journal stays off");
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            loadItems(dir);
+            nextSequence = lastSequence(dir) + 1;
+        } catch (Throwable t) {
+            System.out.println("[LifestealJournal] cannot open " + dir + ", journal stays off: " + t);
+            return;
+        }
+        compress = next.isCompress() && zstdAvailable();
+        Segment first = mapSegment();
+        if (first == null) return;
+        active.set(first);
+        prepareSpare();
+        System.out.println("[LifestealJournal] writing to " + dir + " (" + next.getSegmentRecords() + " records per segment"
+                + (compress ? ", zstd" : "") + ")");
+    }
+
+    private static void close() {
+        Segment s = active.getAndSet(null);
+        discard(spare.getAndSet(null));
+        if (s != null) seal(s);
+    }
+
+    private static void prepareSpare() {
+        if (spare.get() != null) return;
+        Segment next = mapSegment();
+        if (next != null && !spare.compareAndSet(null, next)) discard(next);
+    }
+
+    @Nullable
+    private static Segment mapSegment() {
+        long sequence = nextSequence++;
+        Path file = openDirectory.resolve(segmentName(sequence) + SEGMENT_SUFFIX);
+        int capacity = settings.getSegmentRecords();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putShort(6, (short) RECORD_BYTES);
+            buffer.putLong(8, sequence);
+            buffer.putLong(16, System.currentTimeMillis());
+            buffer.putInt(24, capacity);
+            return new Segment(file, buffer, capacity);
+        } catch (Throwable t) {
+            System.out.println("[LifestealJournal] cannot map " + file + ": " + t);
+            return null;
+        }
+    }
+
+    // Journal thread; the segment is no longer active, but writers that claimed a slot may still be filling it
+    private static void seal(Segment s) {
+        if (s.sealed) return;
+        s.sealed = true;
+        long records = Math.min(s.claimed.get(), s.capacity);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (s.committed.get() < records && System.nanoTime() < deadline) Thread.onSpinWait();
+        if (records == 0) {
+            discard(s);
+            return;
+        }
+        if (!compress) return;
+        Path out = s.file.resolveSibling(s.file.getFileName().toString().replace(SEGMENT_SUFFIX, COMPRESSED_SUFFIX));
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try {
+            ByteBuffer used = s.buffer.duplicate();
+            used.position(0).limit(HEADER_BYTES + (int) records * RECORD_BYTES);
+            try (OutputStream os = new ZstdOutputStream(Files.newOutputStream(tmp), 3)) {
+                Channels.newChannel(os).write(used);
+            }
+            Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(s.file);
+        } catch (Throwable t) {
+            System.out.println("[LifestealJournal] could not compress " + s.file.getFileName() + ", keeping it uncompressed: " + t);
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private static void discard(@Nullable Segment s) {
+        if (s == null) return;
+        s.sealed = true;
+        try {
+            Files.deleteIfExists(s.file);
+        } catch (IOException ignored) {
+            // still mapped on some platforms; an empty segment is skipped by readers
+        }
+    }
+
+    private static void loadItems(Path dir) throws IOException {
+        items.clear();
+        int next = 0;
+        Path file = dir.resolve(ITEMS_FILE);
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab <= 0) continue;
+                    int index = Integer.parseInt(line.substring(0, tab));
+                    items.put(line.substring(tab + 1), index);
+                    next = Math.max(next, index + 1);
+                }
+            }
+        }
+        nextItem.set(next);
+    }
+
+    private static void appendItem(int index, String itemId) {
+        Path dir = openDirectory;
+        if (dir == null) return;
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve(ITEMS_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(index + "\t" + itemId);
+            out.newLine();
+        } catch (IOException e) {
+            System.out.println("[LifestealJournal] could not record item " + itemId + ": " + e);
+        }
+    }
+
+    private static long lastSequence(Path dir) throws IOException {
+        long last = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*")) {
+            for (Path f : files) last = Math.max(last, sequenceOf(f));
+        }
+        return last;
+    }
+
+    static String segmentName(long sequence) {
+        return SEGMENT_PREFIX + String.format("%08d", sequence);
+    }
+
+    /**
+     * Sequence number of a segment file name, or -1 for other files.
+     */
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX)) return -1;
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), end < 0 ? name.length() : end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static boolean zstdAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (Throwable t) {
+            System.out.println("[LifestealJournal] zstd unavailable, segments stay uncompressed: " + t);
+            return false;
+        }
+    }
+
+    private static final class Segment {
+        final Path file;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final AtomicLong claimed = new AtomicLong();
+        final AtomicLong committed = new AtomicLong();
+        boolean sealed; // journal thread only
+
+        Segment(Path file, MappedByteBuffer buffer, int capacity) {
+            this.file = file;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        void put(int slot, long tick, int attacker, int item, float damage, float fraction, float heal) {
+            int at = HEADER_BYTES + slot * RECORD_BYTES;
+            buffer.putLong(at + TICK, tick);
+            buffer.putInt(at + ATTACKER, attacker);
+            buffer.putInt(at + ITEM, item);
+            buffer.putFloat(at + DAMAGE, damage);
+            buffer.putFloat(at + FRACTION, fraction);
+            buffer.putFloat(at + HEAL, heal);
+            buffer.putInt(at + MARKER, RECORD_MARKER);
+            committed.incrementAndGet();
+        }
+    }
+
+    /**
+     * "lifestealJournal" settings from config.json (PluginConfig.getJournal()).
+     */
+    public static final class Settings {
+        public static final Settings DISABLED = new Settings(false, 1 << 20, true);
+
+        private final boolean enabled;
+        private final int segmentRecords;
+        private final boolean compress;
+
+        public Settings(boolean enabled, int segmentRecords, boolean compress) {
+            if (segmentRecords <= 0 || segmentRecords > MAX_SEGMENT_RECORDS) {
+                throw new IllegalArgumentException("segmentRecords must be between 1 and " + MAX_SEGMENT_RECORDS);
+            }
+            this.enabled = enabled;
+            this.segmentRecords = segmentRecords;
+            this.compress = compress;
+        }
+
+        public boolean enabled() {
+            return enabled;
+        }
+
+        public int getSegmentRecords() {
+            return segmentRecords;
+        }
+
+        public boolean isCompress() {
+            return compress;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Settings)) return false;
+            Settings other = (Settings) o;
+            return enabled == other.enabled && segmentRecords == other.segmentRecords && compress == other.compress;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Boolean.hashCode(enabled) + segmentRecords) + Boolean.hashCode(compress);
+        }
+
+        @Override
+        public String toString() {
+            return enabled ? segmentRecords + " records per segment" + (compress ? ", compressed" : "") : "disabled";
+        }
+    }
+}
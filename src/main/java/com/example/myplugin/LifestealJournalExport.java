@@ -0,0 +1,164 @@
+package com.example.myplugin;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline reader for LifestealJournal segments: writes every record as one CSV line.
+ *
+ *   java -cp <plugin jar>:HytaleServer.jar com.example.myplugin.LifestealJournalExport <journal dir | segment files...> [--out heals.csv]
+ *
+ * - Reads .lsj (mapped) and .lsj.zst (zstd) segments in sequence order; without --out the CSV goes to stdout.
+ * - Item numbers are resolved through items.tsv next to each segment; unknown numbers leave item_id empty.
+ * - Slots without the record marker (never written, or cut off by a crash) are skipped.
+ */
+public final class LifestealJournalExport {
+
+    private LifestealJournalExport() {}
+
+    public static void main(String[] args) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--out") && i + 1 < args.length) out = Paths.get(args[++i]);
+            else inputs.add(Paths.get(args[i]));
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("usage: LifestealJournalExport <journal dir | segment files...> [--out file.csv]");
+            System.exit(2);
+        }
+        List<Path> segments = segments(inputs);
+        long records;
+        if (out == null) {
+            Writer w = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            records = export(segments, w);
+            w.flush();
+        } else {
+            try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                records = export(segments, w);
+            }
+        }
+        System.err.println("[LifestealJournalExport] " + records + " records from " + segments.size() + " segments");
+    }
+
+    /**
+     * Write the CSV header and the records of the given segments; returns the number of records.
+     */
+    static long export(@Nonnull List<Path> segments, @Nonnull Writer out) throws IOException {
+        out.write("segment,tick,attacker,item,item_id,damage,fraction,heal\n");
+        Map<Path, Map<Integer, String>> itemsByDir = new HashMap<>();
+        StringBuilder line = new StringBuilder(96);
+        long total = 0;
+        for (Path segment : segments) {
+            Path dir = segment.toAbsolutePath().getParent();
+            Map<Integer, String> items = itemsByDir.get(dir);
+            if (items == null) {
+                items = readItems(dir.resolve(LifestealJournal.ITEMS_FILE));
+                itemsByDir.put(dir, items);
+            }
+            ByteBuffer buf = read(segment);
+            if (buf.limit() < LifestealJournal.HEADER_BYTES || buf.getInt(0) != LifestealJournal.MAGIC) {
+                System.err.println("[LifestealJournalExport] skipping " + segment + ": not a journal segment");
+                continue;
+            }
+            if (buf.getShort(4) != LifestealJournal.VERSION || buf.getShort(6) != LifestealJournal.RECORD_BYTES) {
+                System.err.println("[LifestealJournalExport] skipping " + segment + ": unsupported version " + buf.getShort(4));
+                continue;
+            }
+            long sequence = buf.getLong(8);
+            for (int at = LifestealJournal.HEADER_BYTES; at + LifestealJournal.RECORD_BYTES <= buf.limit(); at += LifestealJournal.RECORD_BYTES) {
+                if (buf.getInt(at + LifestealJournal.MARKER) != LifestealJournal.RECORD_MARKER) continue;
+                int item = buf.getInt(at + LifestealJournal.ITEM);
+                String itemId = items.get(item);
+                line.setLength(0);
+                line.append(sequence).append(',')
+                        .append(buf.getLong(at + LifestealJournal.TICK)).append(',')
+                        .append(buf.getInt(at + LifestealJournal.ATTACKER)).append(',')
+                        .append(item).append(',')
+                        .append(itemId == null ? "" : csv(itemId)).append(',')
+                        .append(buf.getFloat(at + LifestealJournal.DAMAGE)).append(',')
+                        .append(buf.getFloat(at + LifestealJournal.FRACTION)).append(',')
+                        .append(buf.getFloat(at + LifestealJournal.HEAL)).append('\n');
+                out.append(line);
+                total++;
+            }
+        }
+        return total;
+    }
+
+    // Directories expand to their segments; everything is ordered by sequence number
+    private static List<Path> segments(List<Path> inputs) throws IOException {
+        List<Path> out = new ArrayList<>();
+        for (Path p : inputs) {
+            if (Files.isDirectory(p)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(p)) {
+                    for (Path f : files) {
+                        if (isSegment(f)) out.add(f);
+                    }
+                }
+            } else {
+                out.add(p);
+            }
+        }
+        out.sort(Comparator.comparingLong(LifestealJournal::sequenceOf));
+        return out;
+    }
+
+    private static boolean isSegment(Path f) {
+        String name = f.getFileName().toString();
+        return LifestealJournal.sequenceOf(f) >= 0
+                && (name.endsWith(LifestealJournal.SEGMENT_SUFFIX) || name.endsWith(LifestealJournal.COMPRESSED_SUFFIX));
+    }
+
+    private static ByteBuffer read(Path segment) throws IOException {
+        ByteBuffer buf;
+        if (segment.getFileName().toString().endsWith(LifestealJournal.COMPRESSED_SUFFIX)) {
+            try (InputStream in = new ZstdInputStream(Files.newInputStream(segment))) {
+                buf = ByteBuffer.wrap(in.readAllBytes());
+            }
+        } else {
+            try (FileChannel ch = FileChannel.open(segment)) {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+        }
+        return buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static Map<Integer, String> readItems(Path file) throws IOException {
+        Map<Integer, String> items = new HashMap<>();
+        if (!Files.exists(file)) return items;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) items.put(Integer.parseInt(line.substring(0, tab)), line.substring(tab + 1));
+            }
+        }
+        return items;
+    }
+
+    private static String csv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.myplugin;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on counters for the lifesteal damage path.
+ *
+ * - One LongAdder per handle() outcome, indexed by the LifestealDebugLog reason codes.
+ * - Healed totals are added when HealBatch actually applies a heal to the stat map.
+ * - HANDLE_LATENCY samples one handle() call in HANDLE_SAMPLE_EVERY (two nanoTime calls would
+ *   cost about as much as a typical hit); POPULATE_LATENCY records every full asset scan.
+ * - report() formats a snapshot for /lifestealstats; startPeriodicDump(...) prints the activity of
+ *   each period to stdout from a daemon thread.
+ */
+public final class LifestealMetrics {
+    /** handle() calls are timed when (callCount & HANDLE_SAMPLE_MASK) == 0. */
+    public static final int HANDLE_SAMPLE_EVERY = 16;
+    static final int HANDLE_SAMPLE_MASK = HANDLE_SAMPLE_EVERY - 1;
+
+    // Indexed by LifestealDebugLog reason codes
+    private static final String[] OUTCOME_NAMES = {
+            "cancelled", "zeroDamage", "notEntitySource", "invalidRef", "notLivingEntity",
+            "noHeldItem", "zeroLifesteal", "noStatMap", "applied", "rateCapped"
+    };
+
+    private static final LongAdder[] OUTCOMES = new LongAdder[OUTCOME_NAMES.length];
+    private static final LongAdder HEALS = new LongAdder();
+    private static final DoubleAdder HEALED = new DoubleAdder();
+
+    public static final LatencyHistogram HANDLE_LATENCY = new LatencyHistogram();
+    public static final LatencyHistogram POPULATE_LATENCY = new LatencyHistogram();
+
+    private static final long STARTED_NANOS = System.nanoTime();
+    private static ScheduledExecutorService dumper;
+    private static Snapshot lastDump;
+
+    static {
+        for (int i = 0; i < OUTCOMES.length; i++) OUTCOMES[i] = new LongAdder();
+    }
+
+    private LifestealMetrics() {}
+
+    /**
+     * Count one handle() outcome (a LifestealDebugLog reason code).
+     */
+    public static void count(int outcome) {
+        OUTCOMES[outcome].increment();
+    }
+
+    /**
+     * Health actually added to one attacker by a flushed HealBatch.
+     */
+    public static void healed(float amount) {
+        HEALS.increment();
+        HEALED.add(amount);
+    }
+
+    @Nonnull
+    public static Snapshot snapshot() {
+        long[] outcomes = new long[OUTCOMES.length];
+        for (int i = 0; i < outcomes.length; i++) outcomes[i] = OUTCOMES[i].sum();
+        return new Snapshot(System.nanoTime(), outcomes, HEALS.sum(), HEALED.sum(),
+                HANDLE_LATENCY.snapshot(), POPULATE_LATENCY.snapshot());
+    }
+
+    /**
+     * Totals since startup, one line per entry.
+     */
+    @Nonnull
+    public static List<String> report() {
+        Snapshot now = snapshot();
+        return now.lines(now.takenNanos - STARTED_NANOS);
+    }
+
+    /**
+     * Print the activity of every period to stdout until shutdown(). Replaces a running dump.
+     */
+    public static synchronized void startPeriodicDump(long period, @Nonnull TimeUnit unit) {
+        if (dumper != null) dumper.shutdownNow();
+        lastDump = snapshot();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Lifesteal-Metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(LifestealMetrics::dump, period, period, unit);
+    }
+
+    public static synchronized void shutdown() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    private static void dump() {
+        try {
+            Snapshot now = snapshot();
+            Snapshot previous;
+            synchronized (LifestealMetrics.class) {
+                previous = lastDump;
+                lastDump = now;
+            }
+            Snapshot window = now.since(previous);
+            StringBuilder sb = new StringBuilder();
+            for (String line : window.lines(now.takenNanos - previous.takenNanos)) {
+                sb.append("[LifestealMetrics] ").append(line).append('\n');
+            }
+            System.out.print(sb);
+        } catch (Throwable t) {
+            System.out.println("[LifestealMetrics] dump failed:");
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * Immutable copy of all counters at one point in time.
+     */
+    public static final class Snapshot {
+        private final long takenNanos;
+        private final long[] outcomes;
+        private final long heals;
+        private final double healed;
+        private final LatencyHistogram.Snapshot handle;
+        private final LatencyHistogram.Snapshot populate;
+
+        private Snapshot(long takenNanos, long[] outcomes, long heals, double healed,
+                         LatencyHistogram.Snapshot handle, LatencyHistogram.Snapshot populate) {
+            this.takenNanos = takenNanos;
+            this.outcomes = outcomes;
+            this.heals = heals;
+            this.healed = healed;
+            this.handle = handle;
+            this.populate = populate;
+        }
+
+        public long getOutcome(int outcome) {
+            return outcomes[outcome];
+        }
+
+        /**
+         * Damage events seen by handle(). noStatMap is left out: it is counted at flush time for a
+         * hit that was already counted as applied.
+         */
+        public long getHits() {
+            long n = 0;
+            for (int i = 0; i < outcomes.length; i++) {
+                if (i != LifestealDebugLog.NO_STAT_MAP) n += outcomes[i];
+            }
+            return n;
+        }
+
+        public double getHealed() {
+            return healed;
+        }
+
+        @Nonnull
+        public LatencyHistogram.Snapshot getHandleLatency() {
+            return handle;
+        }
+
+        @Nonnull
+        public LatencyHistogram.Snapshot getPopulateLatency() {
+            return populate;
+        }
+
+        /**
+         * Activity between the earlier snapshot and this one.
+         */
+        @Nonnull
+        public Snapshot since(@Nonnull Snapshot earlier) {
+            long[] diff = new long[outcomes.length];
+            for (int i = 0; i < diff.length; i++) diff[i] = outcomes[i] - earlier.outcomes[i];
+            return new Snapshot(takenNanos, diff, heals - earlier.heals, healed - earlier.healed,
+                    handle.since(earlier.handle), populate.since(earlier.populate));
+        }
+
+        List<String> lines(long spanNanos) {
+            double seconds = Math.max(spanNanos / 1_000_000_000.0, 1e-9);
+            long hits = getHits();
+            List<String> out = new ArrayList<>();
+            out.add(String.format("lifesteal over %.0fs: %d damage events (%.1f/s), %d applied (%.1f%%)",
+                    seconds, hits, hits / seconds, outcomes[LifestealDebugLog.APPLIED], percent(outcomes[LifestealDebugLog.APPLIED], hits)));
+            StringBuilder sb = new StringBuilder("outcomes:");
+            for (int i = 0; i < outcomes.length; i++) {
+                sb.append(' ').append(OUTCOME_NAMES[i]).append('=').append(outcomes[i]);
+            }
+            out.add(sb.toString());
+            out.add(String.format("healed: %.1f health over %d heals", healed, heals));
+            out.add("handle latency (1 in " + HANDLE_SAMPLE_EVERY + " sampled): " + handle.describe());
+            out.add("populateFromAssets latency: " + populate.describe());
+            return out;
+        }
+
+        private static double percent(long part, long whole) {
+            return whole == 0 ? 0.0 : part * 100.0 / whole;
+        }
+    }
+}
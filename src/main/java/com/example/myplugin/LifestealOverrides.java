@@ -0,0 +1,125 @@
+package com.example.myplugin;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-item lifesteal overrides for live tuning, from lifesteal_overrides.json in the data directory:
+ *
+ *   { "items/dagger_basic": 0.25, "items/sword_iron": 0.1 }
+ *
+ * - Values win over the asset values AssetLifestealLoader scans; deleting a line restores the asset
+ *   value. A missing file means no overrides.
+ * - watch() reloads the file on the watcher thread when it changes. Only the entries that differ
+ *   from the previous file are published to LifestealRegistry, then ItemLifestealIndex is rebuilt
+ *   on the same thread, so nothing of this runs on the world thread and no asset scan is repeated.
+ * - A file with an invalid entry is rejected as a whole and the previous overrides stay in effect.
+ */
+public final class LifestealOverrides {
+    private static volatile Path file;
+    private static volatile Map<String, Double> current = Map.of();
+    private static FileWatcher watcher;
+
+    private LifestealOverrides() {}
+
+    /**
+     * Overrides in effect right now (unmodifiable).
+     */
+    @Nonnull
+    public static Map<String, Double> current() {
+        return current;
+    }
+
+    /**
+     * Where server owners keep the overrides (usually the plugin data directory); null disables them.
+     */
+    public static void setFile(@Nullable Path overridesFile) {
+        file = overridesFile;
+    }
+
+    /**
+     * Re-read the file and apply the difference to the previous overrides.
+     * On a read or parse error the current overrides stay in effect.
+     */
+    public static synchronized boolean reload() {
+        Path f = file;
+        if (f == null) return false;
+        long t0 = System.nanoTime();
+        try {
+            Map<String, Double> next;
+            if (Files.exists(f)) {
+                try (Reader in = Files.newBufferedReader(f, StandardCharsets.UTF_8)) {
+                    next = parse(in);
+                }
+            } else {
+                next = Map.of();
+            }
+            int changed = AssetLifestealLoader.applyOverrides(next);
+            current = next;
+            System.out.println("[LifestealOverrides] " + next.size() + " overrides from " + f.getFileName() + ", "
+                    + changed + " entries republished (" + String.format("%.1f", (System.nanoTime() - t0) / 1_000_000.0) + " ms)");
+            return true;
+        } catch (Throwable t) {
+            System.out.println("[LifestealOverrides] could not load " + f + ", keeping the previous " + current.size() + " overrides: " + t.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reload whenever the file changes, until shutdown(). Replaces a running watcher.
+     */
+    public static synchronized void watch() {
+        shutdown();
+        Path f = file;
+        if (f != null) watcher = FileWatcher.start(f, "Lifesteal-OverridesWatch", LifestealOverrides::reload);
+    }
+
+    public static synchronized void shutdown() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Parse and validate; throws IllegalArgumentException listing every problem.
+     */
+    @Nonnull
+    static Map<String, Double> parse(@Nonnull Reader in) {
+        JsonElement root;
+        try {
+            root = JsonParser.parseReader(in);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("invalid JSON: " + e.getMessage(), e);
+        }
+        if (root.isJsonNull()) return Map.of(); // empty file
+        if (!root.isJsonObject()) throw new IllegalArgumentException("expected an object of item id -> lifesteal");
+        JsonObject o = root.getAsJsonObject();
+        Map<String, Double> out = new HashMap<>(o.size() * 2);
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> e : o.entrySet()) {
+            JsonElement v = e.getValue();
+            double d = v.isJsonPrimitive() && ((JsonPrimitive) v).isNumber() ? v.getAsDouble() : Double.NaN;
+            if (e.getKey().isEmpty()) problems.add("empty item id");
+            else if (!(d >= 0) || Double.isInfinite(d)) problems.add(e.getKey() + ": lifesteal must be a finite number >= 0");
+            else out.put(e.getKey(), d);
+        }
+        if (!problems.isEmpty()) throw new IllegalArgumentException(String.join("; ", problems));
+        return Collections.unmodifiableMap(out);
+    }
+}
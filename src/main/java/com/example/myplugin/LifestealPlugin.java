@@ -4,6 +4,7 @@ import com.hypixel.hytale.common.plugin.PluginManifest;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.component.ComponentRegistryProxy;
+import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 public class LifestealPlugin extends JavaPlugin {
@@ -22,7 +23,18 @@ public class LifestealPlugin extends JavaPlugin {
 
     @Override
     protected void setup() {
+        LifestealDebugLog.setEnabled(PluginConfig.current().isDebugMode());
+
         ComponentRegistryProxy<EntityStore> entityStoreRegistry = getEntityStoreRegistry();
+        // Per-attacker cache of the held item's lifesteal, invalidated on slot switch / inventory change
+        LifestealComponent.setComponentType(entityStoreRegistry.registerComponent(LifestealComponent.class, LifestealComponent::new));
+        entityStoreRegistry.registerSystem(new LifestealSystems.InvalidateOnSlotSwitch());
+        getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, LifestealSystems::onInventoryChange);
+
+        // Per-attacker heal cap over a sliding window (off unless "lifestealCap" is set in config.json)
+        HealRateLimiter.setResourceType(entityStoreRegistry.registerResource(HealRateLimiter.class, HealRateLimiter::new));
+        entityStoreRegistry.registerSystem(new HealRateLimiter.ReclaimOnRemove());
+
         entityStoreRegistry.registerSystem(new LifestealSystems.LifestealOnDamage());
     }
 }
\ No newline at end of file
@@ -1,46 +1,289 @@
 package com.example.myplugin;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjDoubleConsumer;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
- * Simple runtime registry for item lifesteal values.
+ * Runtime registry for item lifesteal values.
  *
- * - Call setItemLifesteal(itemId, value) to register a value at runtime.
- * - Call getItemLifesteal(itemId) to retrieve a value (may return null).
+ * - Values live in an immutable Snapshot: an open-addressing String -> double table (no boxing).
+ * - Readers call snapshot() (one volatile load) and look up on the returned table; they never lock.
+ * - Writers build a complete new table on their own thread and publish it with a single volatile
+ *   write. Writers are serialized among themselves so concurrent updates are not lost.
+ * - Every publish bumps a generation counter, so callers can tell when the table changed.
  *
- * This avoids changing engine classes directly; adapt LifestealSystems to check this registry.
+ * Holds explicit values only (asset Lifesteal fields loaded by AssetLifestealLoader, API calls);
+ * defaults such as "items/dagger_basic" are LifestealRules in lifesteal_rules.json.
  */
 public final class LifestealRegistry {
-    private static final ConcurrentMap<String, Double> ITEM_LIFESTEAL_MAP = new ConcurrentHashMap<>();
+    /** Returned by Snapshot.get(...) when the item has no registered value. */
+    public static final double ABSENT = Double.NaN;
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+    private static final Object WRITE_LOCK = new Object();
+
+    private static volatile Snapshot current = new Snapshot.Builder(0).build(0L);
 
     private LifestealRegistry() {}
 
+    /**
+     * Current published table. Hold on to it for the duration of one lookup or scan.
+     */
+    @Nonnull
+    public static Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Generation of the current table; changes on every publish.
+     */
+    public static long generation() {
+        return current.generation;
+    }
+
     /**
      * Set or override the lifesteal fraction for an item id (e.g. "items/dagger_basic").
+     * Copies the table; prefer putAll(...) for more than a handful of values.
      * @param itemId exact item asset id
      * @param lifesteal fraction (0.12 = 12%)
      */
     public static void setItemLifesteal(String itemId, double lifesteal) {
         if (itemId == null) return;
-        ITEM_LIFESTEAL_MAP.put(itemId, lifesteal);
-        System.out.println("[LifestealRegistry] set " + itemId + " -> " + lifesteal);
+        synchronized (WRITE_LOCK) {
+            Snapshot.Builder b = current.toBuilder(1);
+            b.put(itemId, lifesteal);
+            publish(b);
+        }
     }
 
     /**
      * Get the lifesteal value for an item id, or null if none registered.
+     * Boxes; hot paths should use snapshot().get(itemId) instead.
      */
     @Nullable
     public static Double getItemLifesteal(String itemId) {
         if (itemId == null) return null;
-        return ITEM_LIFESTEAL_MAP.get(itemId);
+        double v = current.get(itemId);
+        return Double.isNaN(v) ? null : v;
+    }
+
+    /**
+     * Merge the given values over the current table and publish once.
+     */
+    public static void putAll(@Nonnull Map<String, ? extends Number> values) {
+        synchronized (WRITE_LOCK) {
+            Snapshot.Builder b = current.toBuilder(values.size());
+            putEntries(b, values);
+            publish(b);
+        }
+    }
+
+    /**
+     * Apply a diff and publish once: removals first, then upserts. Publishes nothing if both are empty.
+     * Returns the table the diff ended up in (the current one when nothing was published).
+     */
+    @Nonnull
+    public static Snapshot update(@Nonnull Map<String, ? extends Number> upserts, @Nonnull Collection<String> removals) {
+        if (upserts.isEmpty() && removals.isEmpty()) return current;
+        synchronized (WRITE_LOCK) {
+            Snapshot.Builder b = current.toBuilder(upserts.size());
+            for (String id : removals) {
+                if (id != null) b.remove(id);
+            }
+            putEntries(b, upserts);
+            publish(b);
+            return current;
+        }
+    }
+
+    /**
+     * Replace the whole table with the given values and publish once.
+     */
+    public static void replaceAll(@Nonnull Map<String, ? extends Number> values) {
+        Snapshot.Builder b = new Snapshot.Builder(values.size());
+        putEntries(b, values);
+        synchronized (WRITE_LOCK) {
+            publish(b);
+        }
     }
 
     /**
      * Clear all registered mappings.
      */
     public static void clear() {
-        ITEM_LIFESTEAL_MAP.clear();
+        synchronized (WRITE_LOCK) {
+            publish(new Snapshot.Builder(0));
+        }
+    }
+
+    private static void putEntries(Snapshot.Builder b, Map<String, ? extends Number> values) {
+        for (Map.Entry<String, ? extends Number> e : values.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) continue;
+            b.put(e.getKey(), e.getValue().doubleValue());
+        }
+    }
+
+    // caller holds WRITE_LOCK
+    private static void publish(Snapshot.Builder b) {
+        current = b.build(GENERATIONS.incrementAndGet());
+    }
+
+    /**
+     * Immutable open-addressing (linear probing) String -> double table.
+     */
+    public static final class Snapshot {
+        private final String[] keys;
+        private final double[] values;
+        private final int mask;
+        private final int size;
+        private final long generation;
+
+        private Snapshot(String[] keys, double[] values, int size, long generation) {
+            this.keys = keys;
+            this.values = values;
+            this.mask = keys.length - 1;
+            this.size = size;
+            this.generation = generation;
+        }
+
+        /**
+         * Lifesteal fraction for the item id, or ABSENT (NaN) if none registered.
+         */
+        public double get(@Nullable String itemId) {
+            if (itemId == null) return ABSENT;
+            String[] k = keys;
+            int i = slot(itemId.hashCode(), mask);
+            for (;;) {
+                String key = k[i];
+                if (key == null) return ABSENT;
+                if (key == itemId || key.equals(itemId)) return values[i];
+                i = (i + 1) & mask;
+            }
+        }
+
+        public boolean contains(@Nullable String itemId) {
+            return !Double.isNaN(get(itemId));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long generation() {
+            return generation;
+        }
+
+        public void forEach(@Nonnull ObjDoubleConsumer<String> action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) action.accept(keys[i], values[i]);
+            }
+        }
+
+        // Copies the arrays as they are when the extra entries fit; only rehashes when the table has to grow.
+        Builder toBuilder(int extra) {
+            if (Builder.tableSizeFor(size + extra) <= keys.length) {
+                return new Builder(Arrays.copyOf(keys, keys.length), Arrays.copyOf(values, values.length), size);
+            }
+            Builder b = new Builder(size + extra);
+            forEach(b::put);
+            return b;
+        }
+
+        static int slot(int hash, int mask) {
+            int h = hash * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        /**
+         * Mutable table used to build a Snapshot off the reader threads. Not thread-safe.
+         */
+        public static final class Builder {
+            private String[] keys;
+            private double[] values;
+            private int size;
+
+            public Builder(int expected) {
+                int cap = tableSizeFor(expected);
+                keys = new String[cap];
+                values = new double[cap];
+            }
+
+            private Builder(String[] keys, double[] values, int size) {
+                this.keys = keys;
+                this.values = values;
+                this.size = size;
+            }
+
+            public Builder put(@Nonnull String itemId, double lifesteal) {
+                if ((size + 1) * 2 > keys.length) grow();
+                int mask = keys.length - 1;
+                int i = slot(itemId.hashCode(), mask);
+                while (keys[i] != null) {
+                    if (keys[i].equals(itemId)) {
+                        values[i] = lifesteal;
+                        return this;
+                    }
+                    i = (i + 1) & mask;
+                }
+                keys[i] = itemId;
+                values[i] = lifesteal;
+                size++;
+                return this;
+            }
+
+            public Builder remove(@Nonnull String itemId) {
+                int mask = keys.length - 1;
+                int i = slot(itemId.hashCode(), mask);
+                while (keys[i] != null) {
+                    if (keys[i].equals(itemId)) {
+                        keys[i] = null;
+                        size--;
+                        // re-insert the rest of the probe run so lookups never stop early
+                        i = (i + 1) & mask;
+                        while (keys[i] != null) {
+                            String k = keys[i];
+                            double v = values[i];
+                            keys[i] = null;
+                            size--;
+                            put(k, v);
+                            i = (i + 1) & mask;
+                        }
+                        return this;
+                    }
+                    i = (i + 1) & mask;
+                }
+                return this;
+            }
+
+            public int size() {
+                return size;
+            }
+
+            public Snapshot build(long generation) {
+                return new Snapshot(Arrays.copyOf(keys, keys.length), Arrays.copyOf(values, values.length), size, generation);
+            }
+
+            private void grow() {
+                String[] oldKeys = keys;
+                double[] oldValues = values;
+                keys = new String[oldKeys.length * 2];
+                values = new double[oldValues.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) put(oldKeys[i], oldValues[i]);
+                }
+            }
+
+            private static int tableSizeFor(int expected) {
+                int cap = 8;
+                while (cap < expected * 2) cap <<= 1;
+                return cap;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,272 @@
+package com.example.myplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.assetstore.AssetExtraInfo;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default lifesteal for items without an explicit value, from lifesteal_rules.json.
+ *
+ * Rule format ({"rules": [ ... ]}); every condition given must match:
+ *   "id"       exact item id
+ *   "idPrefix" id prefix (case-insensitive)
+ *   "idGlob"   id glob with * and ? (case-insensitive)
+ *   "category" one of the item's categories (case-insensitive)
+ *   "tag"      "Key" or "Key=Value" against the item's asset tags (case-insensitive)
+ *   "lifesteal" fraction (required), "priority" (default 0; highest wins, ties go to the earlier rule)
+ *
+ * - Explicit values (asset Lifesteal fields, LifestealRegistry) always win over rules.
+ * - Rules are only evaluated when a table is built: ItemLifestealIndex stores the result per item
+ *   asset, so the number of rules does not affect the damage path.
+ * - evaluate(...) still runs on the damage path for items outside the index, so it allocates
+ *   nothing: ids are matched case-insensitively in place (regionMatches, a hand-written glob
+ *   matcher) instead of through lowercased copies and regex matchers.
+ * - The bundled lifesteal_rules.json holds the built-in defaults and is copied to the plugin data
+ *   directory on first start; server owners edit that copy and run /reloadlifesteal.
+ */
+public final class LifestealRules {
+    private static final String RESOURCE = "lifesteal_rules.json";
+
+    private static volatile LifestealRules current = loadBundled();
+    private static volatile Path file;
+
+    private final Rule[] rules; // priority desc, then declaration order
+
+    private LifestealRules(List<Rule> rules) {
+        List<Rule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparingInt((Rule r) -> -r.priority).thenComparingInt(r -> r.order));
+        this.rules = sorted.toArray(new Rule[0]);
+    }
+
+    /**
+     * Rules in effect right now.
+     */
+    @Nonnull
+    public static LifestealRules current() {
+        return current;
+    }
+
+    /**
+     * Where server owners edit the rules (usually the plugin data directory); null keeps the bundled defaults.
+     */
+    public static void setFile(@Nullable Path rulesFile) {
+        file = rulesFile;
+    }
+
+    /**
+     * Re-read the rules file (creating it from the bundled defaults if missing) and publish the result.
+     * On a read or parse error the current rules stay in effect. Callers rebuild ItemLifestealIndex afterwards.
+     */
+    public static synchronized boolean reload() {
+        Path f = file;
+        if (f == null) return false;
+        try {
+            if (!Files.exists(f)) writeBundledCopy(f);
+            try (Reader in = Files.newBufferedReader(f, StandardCharsets.UTF_8)) {
+                current = parse(in, f.getFileName().toString());
+            }
+            System.out.println("[LifestealRules] loaded " + current.size() + " rules from " + f);
+            return true;
+        } catch (Throwable t) {
+            System.out.println("[LifestealRules] could not load " + f + ", keeping the previous " + current.size() + " rules: " + t);
+            return false;
+        }
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * Lifesteal of the highest-priority matching rule, or 0 if none matches.
+     */
+    public float evaluate(@Nullable Item item, @Nullable String itemId) {
+        if (rules.length == 0) return 0f;
+        String[] categories = null;
+        Map<String, String[]> tags = null;
+        boolean itemRead = false;
+        for (Rule r : rules) {
+            if ((r.needsCategories || r.needsTags) && !itemRead) {
+                itemRead = true;
+                categories = categoriesOf(item);
+                tags = tagsOf(item);
+            }
+            if (r.matches(itemId, categories, tags)) return r.lifesteal;
+        }
+        return 0f;
+    }
+
+    @Nonnull
+    static LifestealRules parse(@Nonnull Reader in, @Nonnull String source) {
+        JsonElement root = JsonParser.parseReader(in);
+        JsonArray array = root.isJsonObject() && root.getAsJsonObject().has("rules")
+                ? root.getAsJsonObject().getAsJsonArray("rules") : new JsonArray();
+        List<Rule> out = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            try {
+                out.add(Rule.compile(array.get(i).getAsJsonObject(), i));
+            } catch (RuntimeException e) {
+                System.out.println("[LifestealRules] " + source + ": skipping rule #" + i + ": " + e.getMessage());
+            }
+        }
+        return new LifestealRules(out);
+    }
+
+    private static LifestealRules loadBundled() {
+        try (InputStream in = LifestealRules.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) return new LifestealRules(List.of());
+            return parse(new InputStreamReader(in, StandardCharsets.UTF_8), RESOURCE);
+        } catch (Throwable t) {
+            System.out.println("[LifestealRules] could not read bundled " + RESOURCE + ": " + t);
+            return new LifestealRules(List.of());
+        }
+    }
+
+    private static void writeBundledCopy(Path target) throws IOException {
+        try (InputStream in = LifestealRules.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) return;
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Files.copy(in, target);
+        }
+    }
+
+    @Nullable
+    private static String[] categoriesOf(@Nullable Item item) {
+        try {
+            return item == null ? null : item.getCategories();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Map<String, String[]> tagsOf(@Nullable Item item) {
+        try {
+            AssetExtraInfo.Data data = item == null ? null : item.getData();
+            return data == null ? null : data.getRawTags();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static final class Rule {
+        final int order;
+        final int priority;
+        final float lifesteal;
+        @Nullable final String id;
+        @Nullable final String prefix;
+        @Nullable final String glob;
+        @Nullable final String category;
+        @Nullable final String tagKey;
+        @Nullable final String tagValue;
+        final boolean needsCategories;
+        final boolean needsTags;
+
+        private Rule(int order, int priority, float lifesteal, String id, String prefix, String glob,
+                     String category, String tag) {
+            this.order = order;
+            this.priority = priority;
+            this.lifesteal = lifesteal;
+            this.id = id;
+            this.prefix = prefix;
+            this.glob = glob;
+            this.category = category;
+            if (tag == null) {
+                tagKey = null;
+                tagValue = null;
+            } else {
+                int eq = tag.indexOf('=');
+                tagKey = eq < 0 ? tag : tag.substring(0, eq);
+                tagValue = eq < 0 ? null : tag.substring(eq + 1);
+            }
+            this.needsCategories = category != null;
+            this.needsTags = tag != null;
+        }
+
+        static Rule compile(JsonObject o, int order) {
+            if (!o.has("lifesteal")) throw new IllegalArgumentException("missing \"lifesteal\"");
+            float lifesteal = o.get("lifesteal").getAsFloat();
+            if (!(lifesteal >= 0f)) throw new IllegalArgumentException("\"lifesteal\" must be >= 0");
+            int priority = o.has("priority") ? o.get("priority").getAsInt() : 0;
+            Rule r = new Rule(order, priority, lifesteal, string(o, "id"), string(o, "idPrefix"), string(o, "idGlob"),
+                    string(o, "category"), string(o, "tag"));
+            if (r.id == null && r.prefix == null && r.glob == null && r.category == null && r.tagKey == null) {
+                throw new IllegalArgumentException("no condition (id, idPrefix, idGlob, category or tag)");
+            }
+            return r;
+        }
+
+        boolean matches(@Nullable String itemId, @Nullable String[] categories, @Nullable Map<String, String[]> tags) {
+            if (id != null && !id.equals(itemId)) return false;
+            if (prefix != null && (itemId == null || !itemId.regionMatches(true, 0, prefix, 0, prefix.length()))) return false;
+            if (glob != null && (itemId == null || !globMatches(glob, itemId))) return false;
+            if (category != null && !containsIgnoreCase(categories, category)) return false;
+            if (tagKey != null && !hasTag(tags)) return false;
+            return true;
+        }
+
+        private boolean hasTag(@Nullable Map<String, String[]> tags) {
+            if (tags == null) return false;
+            for (Map.Entry<String, String[]> e : tags.entrySet()) {
+                if (!tagKey.equalsIgnoreCase(e.getKey())) continue;
+                if (tagValue == null || containsIgnoreCase(e.getValue(), tagValue)) return true;
+            }
+            return false;
+        }
+
+        private static boolean containsIgnoreCase(@Nullable String[] values, String wanted) {
+            if (values == null) return false;
+            for (String v : values) {
+                if (v != null && v.equalsIgnoreCase(wanted)) return true;
+            }
+            return false;
+        }
+
+        @Nullable
+        private static String string(JsonObject o, String key) {
+            JsonElement e = o.get(key);
+            if (e == null || e.isJsonNull()) return null;
+            String s = e.getAsString();
+            if (s.isEmpty()) throw new IllegalArgumentException("empty \"" + key + "\"");
+            return s;
+        }
+
+        // Case-insensitive glob match with * and ?; backtracks to the last '*' only, no regex and no allocation.
+        static boolean globMatches(String glob, String s) {
+            int g = 0, i = 0, star = -1, resume = 0;
+            while (i < s.length()) {
+                if (g < glob.length() && glob.charAt(g) == '*') {
+                    star = g++;
+                    resume = i;
+                } else if (g < glob.length() && (glob.charAt(g) == '?' || glob.regionMatches(true, g, s, i, 1))) {
+                    g++;
+                    i++;
+                } else if (star >= 0) {
+                    g = star + 1;
+                    i = ++resume;
+                } else {
+                    return false;
+                }
+            }
+            while (g < glob.length() && glob.charAt(g) == '*') g++;
+            return g == glob.length();
+        }
+    }
+}
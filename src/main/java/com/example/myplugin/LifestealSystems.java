@@ -1,33 +1,43 @@
 package com.example.myplugin;
 
 import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.server.core.event.events.ecs.SwitchActiveSlotEvent;
+import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.modules.entity.damage.DamageEventSystem;
 import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
-import com.hypixel.hytale.server.core.modules.entitystats.asset.DefaultEntityStatTypes;
-import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
 import com.hypixel.hytale.server.core.entity.EntityUtils;
 import com.hypixel.hytale.server.core.entity.Entity;
 import com.hypixel.hytale.server.core.entity.LivingEntity;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
 import com.hypixel.hytale.server.core.modules.entity.AllLegacyLivingEntityTypesQuery;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.HashMap;
 
 /**
  * Robust lifesteal system:
- * - prints System.out debug lines so you can see activity
- * - uses reflection to try multiple inventory / item getters
- * - supports explicit ITEM_LIFESTEAL_MAP
+ * - heals are batched per attacker and applied once per tick via the CommandBuffer (HealBatch)
+ * - debug output goes through LifestealDebugLog (async, rate-limited, off unless debugMode)
+ * - outcomes, heals and sampled latency are counted in LifestealMetrics (/lifestealstats)
+ * - resolves the held item through HeldItemResolver (getters bound once per class) and caches the
+ *   result on the attacker as a LifestealComponent until the slot / inventory / registry changes
+ * - finds the attacker (and a thrown weapon) through DamageSourceResolvers, so projectiles and
+ *   other indirect damage leech too
+ * - reads the attacker's Player / NPCEntity component by type; EntityUtils.getEntity (an archetype
+ *   scan) is only the fallback for other LivingEntity types
+ * - reads explicit per-item values from LifestealRegistry, then the configurable LifestealRules
+ * - clips heals to the per-attacker sliding-window cap (HealRateLimiter) when one is configured
+ * - optionally journals every applied heal to memory-mapped segment files (LifestealJournal)
  */
 public final class LifestealSystems {
 
@@ -35,15 +45,8 @@ public final class LifestealSystems {
 
     public static class LifestealOnDamage extends DamageEventSystem {
 
-        private static final double DEFAULT_DAGGER_LIFESTEAL = 0.12;
-
-        // Add your item IDs here (exact match to itemStack.getItemId()).
-        private static final Map<String, Double> ITEM_LIFESTEAL_MAP;
-        static {
-            ITEM_LIFESTEAL_MAP = new HashMap<>();
-            ITEM_LIFESTEAL_MAP.put("items/dagger_basic", 0.12);
-            // ITEM_LIFESTEAL_MAP.put("items/your_dagger_id", 0.15);
-        }
+        // latency sampling counter; a lost update between world threads only shifts the sample
+        private int calls;
 
         public LifestealOnDamage() {
             super();
@@ -62,160 +65,291 @@ public final class LifestealSystems {
                            @Nonnull CommandBuffer<EntityStore> commandBuffer,
                            @Nonnull Damage damageEvent) {
 
-            // quick visible marker each event call (comment out later if spammy)
-            System.out.println("[Lifesteal] handle() called for Damage event");
-
+            boolean timed = (++calls & LifestealMetrics.HANDLE_SAMPLE_MASK) == 0;
+            long start = timed ? System.nanoTime() : 0L;
             try {
                 if (damageEvent == null) return;
                 if (damageEvent.isCancelled()) {
-                    System.out.println("[Lifesteal] damageEvent cancelled");
+                    LifestealMetrics.count(LifestealDebugLog.CANCELLED);
+                    if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.CANCELLED);
                     return;
                 }
 
                 float damageAmount = damageEvent.getAmount();
                 if (damageAmount <= 0f) {
-                    System.out.println("[Lifesteal] damageAmount <= 0");
+                    LifestealMetrics.count(LifestealDebugLog.ZERO_DAMAGE);
+                    if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.ZERO_DAMAGE);
                     return;
                 }
 
+                // One table lookup per source class: entities, projectiles and whatever other plugins registered
                 Damage.Source source = damageEvent.getSource();
-                if (!(source instanceof Damage.EntitySource)) {
-                    // not entity-sourced (could be environmental/projectile without entity source wrapper)
-                    System.out.println("[Lifesteal] source is not EntitySource");
+                DamageSourceResolvers.Resolver resolver = source == null ? DamageSourceResolvers.NONE : DamageSourceResolvers.of(source);
+                if (resolver == DamageSourceResolvers.NONE) {
+                    LifestealMetrics.count(LifestealDebugLog.NOT_ENTITY_SOURCE);
+                    if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.NOT_ENTITY_SOURCE);
                     return;
                 }
 
-                Ref<EntityStore> attackerRef = ((Damage.EntitySource) source).getRef();
+                Ref<EntityStore> attackerRef = resolver.attacker(source);
                 if (attackerRef == null || !attackerRef.isValid()) {
-                    System.out.println("[Lifesteal] attackerRef invalid");
+                    LifestealMetrics.count(LifestealDebugLog.INVALID_REF);
+                    if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.INVALID_REF);
                     return;
                 }
 
-                @Nullable Entity ent = EntityUtils.getEntity(attackerRef, store);
-                if (!(ent instanceof LivingEntity)) {
-                    System.out.println("[Lifesteal] attacker is not LivingEntity");
-                    return;
-                }
-
-                LivingEntity attacker = (LivingEntity) ent;
-
-                ItemStack held = getHeldItemReflective(attacker);
-                if (held == null || ItemStack.isEmpty(held)) {
-                    System.out.println("[Lifesteal] no held item found");
-                    return;
+                // A weapon carried by the source itself (a thrown item) wins over the attacker's held item
+                ItemStack weapon = resolver.weapon(source, store);
+                String itemId;
+                float lifesteal;
+                if (weapon != null && !ItemStack.isEmpty(weapon)) {
+                    itemId = safeItemId(weapon);
+                    lifesteal = (float) getLifestealFromItem(weapon);
+                } else {
+                    // Cached on the attacker; re-resolved only after an equip / inventory change or a reload
+                    LifestealComponent cached = cachedLifesteal(store, attackerRef);
+                    if (cached == null || !cached.isCurrent()) {
+                        @Nullable LivingEntity ent = livingAttacker(store, attackerRef);
+                        if (ent == null) {
+                            LifestealMetrics.count(LifestealDebugLog.NOT_LIVING_ENTITY);
+                            if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.NOT_LIVING_ENTITY);
+                            return;
+                        }
+                        if (cached == null) {
+                            cached = new LifestealComponent();
+                            refresh(cached, ent);
+                            ComponentType<EntityStore, LifestealComponent> type = LifestealComponent.getComponentType();
+                            if (type != null) commandBuffer.putComponent(attackerRef, type, cached);
+                        } else {
+                            refresh(cached, ent);
+                        }
+                    }
+                    itemId = cached.getItemId();
+                    lifesteal = cached.getLifesteal();
                 }
 
-                double lifesteal = getLifestealFromItem(held);
-                if (lifesteal <= 0.0) {
-                    System.out.println("[Lifesteal] lifesteal == 0 for item " + safeItemId(held));
-                    return;
+                float heal = applyLifesteal(commandBuffer, attackerRef, itemId, lifesteal, damageAmount, HealRateLimiter.of(store));
+                // Binary audit journal, off unless "lifestealJournal.enabled"
+                if (heal > 0f && LifestealJournal.isOpen()) {
+                    LifestealJournal.record(worldTick(store), attackerRef.getIndex(), itemId, damageAmount, lifesteal, heal);
                 }
 
-                double heal = damageAmount * lifesteal;
-                if (heal <= 0.0) return;
+            } catch (Throwable t) {
+                System.out.println("[Lifesteal] handler exception:");
+                t.printStackTrace();
+            } finally {
+                if (timed) LifestealMetrics.HANDLE_LATENCY.record(System.nanoTime() - start);
+            }
+        }
 
-                EntityStatMap statMap = (EntityStatMap) store.getComponent(attackerRef, EntityStatMap.getComponentType());
-                if (statMap == null) {
-                    System.out.println("[Lifesteal] no EntityStatMap on attacker");
-                    return;
-                }
+        @Nullable
+        private static LifestealComponent cachedLifesteal(Store<EntityStore> store, Ref<EntityStore> ref) {
+            ComponentType<EntityStore, LifestealComponent> type = LifestealComponent.getComponentType();
+            return type == null ? null : store.getComponent(ref, type);
+        }
 
-                float healFloat = (float) heal;
-                statMap.addStatValue(DefaultEntityStatTypes.getHealth(), healFloat);
+        /**
+         * The attacker as a LivingEntity. Legacy entities are components themselves: players and NPCs
+         * are read by their component type (an archetype contains check and a chunk read), anything
+         * else goes through EntityUtils.getEntity, which scans the archetype for an Entity subclass.
+         */
+        @Nullable
+        static LivingEntity livingAttacker(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+            ComponentType<EntityStore, Player> playerType = Player.getComponentType();
+            if (playerType != null) {
+                Player player = store.getComponent(ref, playerType);
+                if (player != null) return player;
+            }
+            ComponentType<EntityStore, NPCEntity> npcType = npcComponentType();
+            if (npcType != null) {
+                NPCEntity npc = store.getComponent(ref, npcType);
+                if (npc != null) return npc;
+            }
+            Entity ent = EntityUtils.getEntity(ref, store);
+            return ent instanceof LivingEntity ? (LivingEntity) ent : null;
+        }
 
-                // Visible debug
-                System.out.println(String.format("[Lifesteal] applied: attackerIndex=%d damage=%.2f lifesteal=%.3f heal=%.2f item=%s",
-                        attackerRef.getIndex(), (double) damageAmount, lifesteal, heal, safeItemId(held)));
+        // NPCEntity.getComponentType() is a lookup by class; resolved once, after the NPC module registered it
+        private static ComponentType<EntityStore, NPCEntity> npcType;
+        private static boolean npcTypeUnavailable;
 
+        @Nullable
+        private static ComponentType<EntityStore, NPCEntity> npcComponentType() {
+            ComponentType<EntityStore, NPCEntity> type = npcType;
+            if (type != null || npcTypeUnavailable) return type;
+            try {
+                type = NPCEntity.getComponentType();
+                npcType = type;
             } catch (Throwable t) {
-                System.out.println("[Lifesteal] handler exception:");
-                t.printStackTrace();
+                // NPC module not present: players and the EntityUtils fallback still work
+                npcTypeUnavailable = true;
             }
+            return type;
         }
 
-        // Attempt many getter names by reflection so we work despite API differences.
-        @Nullable
-        private ItemStack getHeldItemReflective(@Nonnull LivingEntity attacker) {
+        /**
+         * Resolve the attacker's held item and its lifesteal into the component.
+         */
+        static void refresh(@Nonnull LifestealComponent component, @Nonnull Object attacker) {
+            long generation = LifestealRegistry.generation();
+            ItemLifestealIndex index = ItemLifestealIndex.current();
+            ItemStack held = HeldItemResolver.getHeldItem(attacker);
+            if (held == null || ItemStack.isEmpty(held)) {
+                component.set(null, 0f, generation, index);
+                return;
+            }
+            component.set(safeItemId(held), (float) getLifestealFromItem(held), generation, index);
+        }
+
+        private static long worldTick(Store<EntityStore> store) {
             try {
-                Object inventory = tryInvoke(attacker, "getInventory");
-                if (inventory == null) return null;
-
-                // candidate method names on inventory
-                String[] invGetters = { "getActiveHotbarItem", "getActiveHotbarItemStack", "getActiveHotbarItemStack", "getActiveHotbarItem", "getActiveHotbarItem", "getActiveHotbarItem" , "getActiveHotbarItem", "getActiveHotbarItem" };
-                // candidate names (some jars used getActiveHotbarItem, getActiveHotbarItemStack, getActiveHotbarItem)
-                String[] tries = { "getActiveHotbarItem", "getActiveHotbarItemStack", "getActiveHotbarItem", "getActiveHotbarItem", "getItemInHand", "getActiveItem", "getActiveSlotItem", "getItem" };
-
-                for (String name : tries) {
-                    try {
-                        Method m = inventory.getClass().getMethod(name);
-                        Object out = m.invoke(inventory);
-                        if (out instanceof ItemStack) return (ItemStack) out;
-                    } catch (NoSuchMethodException ignore) {
-                    }
+                return store.getExternalData().getWorld().getTick();
+            } catch (Throwable t) {
+                return -1L;
+            }
+        }
+
+        /**
+         * Everything after the attacker lookup: clip the heal to the attacker's cap (limiter is null
+         * when the cap is off) and queue it; returns the heal queued (0 if none). Split out of
+         * handle(...) so the jmh benchmarks can drive it with stand-in entities.
+         */
+        static float applyLifesteal(@Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull Ref<EntityStore> attackerRef,
+                                    @Nonnull LifestealComponent cached, float damageAmount,
+                                    @Nullable HealRateLimiter limiter) {
+            return applyLifesteal(commandBuffer, attackerRef, cached.getItemId(), cached.getLifesteal(), damageAmount, limiter);
+        }
+
+        /**
+         * Same, for a weapon that is not the attacker's cached held item (itemId null = nothing held).
+         */
+        static float applyLifesteal(@Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull Ref<EntityStore> attackerRef,
+                                    @Nullable String itemId, float lifesteal, float damageAmount,
+                                    @Nullable HealRateLimiter limiter) {
+            if (itemId == null) {
+                LifestealMetrics.count(LifestealDebugLog.NO_HELD_ITEM);
+                if (LifestealDebugLog.enabled) LifestealDebugLog.record(LifestealDebugLog.NO_HELD_ITEM);
+                return 0f;
+            }
+
+            if (lifesteal <= 0f) {
+                LifestealMetrics.count(LifestealDebugLog.ZERO_LIFESTEAL);
+                if (LifestealDebugLog.enabled) {
+                    LifestealDebugLog.record(LifestealDebugLog.ZERO_LIFESTEAL, attackerRef.getIndex(), damageAmount, 0f, 0f, itemId);
                 }
+                return 0f;
+            }
 
-                // fallback: some LivingEntity implementations expose getActiveHotbarItem directly
-                for (String name : tries) {
-                    try {
-                        Method m = attacker.getClass().getMethod(name);
-                        Object out = m.invoke(attacker);
-                        if (out instanceof ItemStack) return (ItemStack) out;
-                    } catch (NoSuchMethodException ignore) {
+            float heal = damageAmount * lifesteal;
+            if (heal <= 0f) return 0f;
+            if (limiter != null) {
+                heal = limiter.admit(attackerRef, heal, System.nanoTime());
+                if (heal <= 0f) {
+                    LifestealMetrics.count(LifestealDebugLog.RATE_CAPPED);
+                    if (LifestealDebugLog.enabled) {
+                        LifestealDebugLog.record(LifestealDebugLog.RATE_CAPPED, attackerRef.getIndex(), damageAmount, lifesteal, 0f, itemId);
                     }
+                    return 0f;
                 }
-            } catch (Throwable t) {
-                System.out.println("[Lifesteal] reflection error while getting held item:");
-                t.printStackTrace();
             }
-            return null;
-        }
 
-        // try to call zero-arg method name on obj, return null if not found or invocation failed
-        private Object tryInvoke(Object obj, String methodName) {
-            try {
-                Method m = obj.getClass().getMethod(methodName);
-                return m.invoke(obj);
-            } catch (Throwable ignored) {
-                return null;
+            // Summed per attacker and applied once through the CommandBuffer at the end of the tick
+            HealBatch.add(commandBuffer, attackerRef, heal);
+            LifestealMetrics.count(LifestealDebugLog.APPLIED);
+
+            if (LifestealDebugLog.enabled) {
+                LifestealDebugLog.record(LifestealDebugLog.APPLIED, attackerRef.getIndex(), damageAmount, lifesteal, heal, itemId);
             }
+            return heal;
         }
 
-        private String safeItemId(ItemStack stack) {
+        private static String safeItemId(ItemStack stack) {
             if (stack == null) return "null";
             try { return String.valueOf(stack.getItemId()); } catch (Throwable t) { return "unknown"; }
         }
 
-        private double getLifestealFromItem(@Nonnull ItemStack itemStack) {
+        static double getLifestealFromItem(@Nonnull ItemStack itemStack) {
             if (itemStack == null) return 0.0;
 
-            // explicit mapping
+            // explicit mapping (asset values / registry): dense table, registry if the table is stale.
+            // The dense table also holds the LifestealRules result per item asset.
+            String itemId = itemStack.getItemId();
             try {
-                String id = itemStack.getItemId();
-                if (id != null) {
-                    Double v = ITEM_LIFESTEAL_MAP.get(id);
-                    if (v != null) return v;
-                }
-            } catch (Throwable ignored) {}
-
-            // categories fallback
-            try {
-                Item it = itemStack.getItem();
-                if (it != null) {
-                    String[] cats = it.getCategories();
-                    if (cats != null) {
-                        for (String c : cats) {
-                            if (c != null && c.equalsIgnoreCase("Dagger")) return DEFAULT_DAGGER_LIFESTEAL;
-                        }
+                ItemLifestealIndex index = ItemLifestealIndex.current();
+                if (index.isCurrent()) {
+                    int pos = index.indexOf(itemId);
+                    if (pos >= 0) {
+                        float v = index.lifestealAt(pos);
+                        if (!Float.isNaN(v)) return v;
+                        if (pos < index.assetCount()) return index.ruleLifestealAt(pos);
                     }
+                } else {
+                    double v = LifestealRegistry.snapshot().get(itemId);
+                    if (!Double.isNaN(v)) return v;
                 }
             } catch (Throwable ignored) {}
 
+            // not an indexed asset (or the table is stale): evaluate the rules directly
+            Item it = null;
             try {
-                String idlower = itemStack.getItemId();
-                if (idlower != null && idlower.toLowerCase().contains("dagger")) return DEFAULT_DAGGER_LIFESTEAL;
+                it = itemStack.getItem();
             } catch (Throwable ignored) {}
+            return LifestealRules.current().evaluate(it, itemId);
+        }
+    }
+
+    /**
+     * Marks the attacker's LifestealComponent stale when the active hotbar slot changes.
+     * The event fires before the switch (and can still be cancelled), so the component is only
+     * invalidated here; the next hit re-resolves the held item.
+     */
+    public static class InvalidateOnSlotSwitch extends EntityEventSystem<EntityStore, SwitchActiveSlotEvent> {
+
+        public InvalidateOnSlotSwitch() {
+            super(SwitchActiveSlotEvent.class);
+        }
+
+        @Nonnull
+        public Query<EntityStore> getQuery() {
+            return LifestealComponent.getComponentType();
+        }
+
+        @Override
+        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                           @Nonnull Store<EntityStore> store,
+                           @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                           @Nonnull SwitchActiveSlotEvent event) {
+            LifestealComponent cached = archetypeChunk.getComponent(index, LifestealComponent.getComponentType());
+            if (cached != null) cached.invalidate();
+        }
+    }
 
-            return 0.0;
+    /**
+     * Inventory changes (pickup, drop, move, durability break...) mark the entity's LifestealComponent stale.
+     * Register with getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, ...).
+     */
+    public static void onInventoryChange(@Nonnull LivingEntityInventoryChangeEvent event) {
+        try {
+            ComponentType<EntityStore, LifestealComponent> type = LifestealComponent.getComponentType();
+            LivingEntity entity = event.getEntity();
+            if (type == null || entity == null) return;
+            Ref<EntityStore> ref = entity.getReference();
+            if (ref == null || !ref.isValid()) return;
+            Store<EntityStore> store = ref.getStore();
+            if (store.isInThread()) {
+                invalidate(store, ref, type);
+            } else {
+                store.getExternalData().getWorld().execute(() -> invalidate(store, ref, type));
+            }
+        } catch (Throwable t) {
+            System.out.println("[Lifesteal] inventory change handler exception:");
+            t.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private static void invalidate(Store<EntityStore> store, Ref<EntityStore> ref, ComponentType<EntityStore, LifestealComponent> type) {
+        if (!ref.isValid()) return;
+        LifestealComponent cached = store.getComponent(ref, type);
+        if (cached != null) cached.invalidate();
+    }
+}
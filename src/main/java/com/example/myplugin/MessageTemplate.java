@@ -0,0 +1,379 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.server.core.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A lang value compiled once into literal and argument segments.
+ *
+ * - Supported syntax (the subset of ICU MessageFormat the lang files use): {name}, {name, number},
+ *   {name, number, 0.0} (fixed fraction digits), {name, number, integer} and
+ *   {name, plural, =0 {...} one {...} other {...}} with '#' standing for the number.
+ * - render(...) appends to a caller-owned StringBuilder: no regex, no re-scanning of the pattern,
+ *   and numbers are appended without String.format. toMessage(...) renders into a per-thread
+ *   builder and wraps the result in a Message.
+ * - Arguments are looked up by name in an Args holder that callers clear and reuse.
+ * - An argument missing from Args renders as "{name}"; unbalanced braces are kept as literal text.
+ * - LangBundles.template(...) compiles each lang value the first time it is used.
+ */
+public final class MessageTemplate {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final Segment[] segments;
+    private final String constant; // non-null when the template has no arguments
+
+    private MessageTemplate(Segment[] segments) {
+        this.segments = segments;
+        if (segments.length == 0) {
+            constant = "";
+        } else if (segments.length == 1 && segments[0] instanceof Literal) {
+            constant = ((Literal) segments[0]).text;
+        } else {
+            constant = null;
+        }
+    }
+
+    @Nonnull
+    public static MessageTemplate compile(@Nonnull String pattern) {
+        return new MessageTemplate(parse(pattern, 0, pattern.length(), false));
+    }
+
+    /**
+     * Append the rendered text to out and return it.
+     */
+    @Nonnull
+    public StringBuilder render(@Nonnull StringBuilder out, @Nullable Args args) {
+        if (constant != null) return out.append(constant);
+        for (Segment s : segments) s.append(out, args, 0);
+        return out;
+    }
+
+    @Nonnull
+    public String format(@Nullable Args args) {
+        if (constant != null) return constant;
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return render(sb, args).toString();
+    }
+
+    @Nonnull
+    public Message toMessage(@Nullable Args args) {
+        return Message.raw(format(args));
+    }
+
+    // --- parsing ---
+
+    private static Segment[] parse(String p, int from, int to, boolean inPlural) {
+        List<Segment> out = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = from;
+        while (i < to) {
+            char c = p.charAt(i);
+            if (c == '#' && inPlural) {
+                flush(literal, out);
+                out.add(PluralNumber.INSTANCE);
+                i++;
+                continue;
+            }
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int close = matchingBrace(p, i, to);
+            Segment arg = close < 0 ? null : argument(p, i + 1, close);
+            if (arg == null) {
+                // not an argument we understand: keep the text as it is
+                int end = close < 0 ? to : close + 1;
+                literal.append(p, i, end);
+                i = end;
+                continue;
+            }
+            flush(literal, out);
+            out.add(arg);
+            i = close + 1;
+        }
+        flush(literal, out);
+        return out.toArray(new Segment[0]);
+    }
+
+    private static void flush(StringBuilder literal, List<Segment> out) {
+        if (literal.length() == 0) return;
+        out.add(new Literal(literal.toString()));
+        literal.setLength(0);
+    }
+
+    private static int matchingBrace(String p, int open, int to) {
+        int depth = 0;
+        for (int i = open; i < to; i++) {
+            char c = p.charAt(i);
+            if (c == '{') depth++;
+            else if (c == '}' && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    // "name", "name, type" or "name, type, style" between the braces
+    @Nullable
+    private static Segment argument(String p, int from, int to) {
+        int comma = indexOf(p, ',', from, to);
+        String name = p.substring(from, comma < 0 ? to : comma).trim();
+        if (!isName(name)) return null;
+        if (comma < 0) return new Arg(name, -1);
+
+        int typeEnd = indexOf(p, ',', comma + 1, to);
+        String type = p.substring(comma + 1, typeEnd < 0 ? to : typeEnd).trim();
+        String style = typeEnd < 0 ? "" : p.substring(typeEnd + 1, to).trim();
+        switch (type) {
+            case "number":
+                if (style.isEmpty()) return new Arg(name, -1);
+                if (style.equals("integer")) return new Arg(name, 0);
+                int dot = style.indexOf('.');
+                return new Arg(name, dot < 0 ? 0 : style.length() - dot - 1);
+            case "plural":
+                return typeEnd < 0 ? null : Plural.parse(name, p, typeEnd + 1, to);
+            default:
+                return null;
+        }
+    }
+
+    private static int indexOf(String p, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (p.charAt(i) == c) return i;
+            if (p.charAt(i) == '{') return -1; // nested sub-message: no more simple fields
+        }
+        return -1;
+    }
+
+    private static boolean isName(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') return false;
+        }
+        return true;
+    }
+
+    static void appendNumber(StringBuilder out, double v, int fractionDigits) {
+        if (fractionDigits < 0) {
+            if (v == (long) v) out.append((long) v);
+            else out.append(v);
+            return;
+        }
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            out.append(v);
+            return;
+        }
+        long scale = 1;
+        for (int i = 0; i < fractionDigits; i++) scale *= 10;
+        long scaled = Math.round(Math.abs(v) * scale);
+        if (v < 0 && scaled != 0) out.append('-');
+        out.append(scaled / scale);
+        if (fractionDigits == 0) return;
+        out.append('.');
+        long frac = scaled % scale;
+        for (long d = scale / 10; d > 1 && frac < d; d /= 10) out.append('0');
+        out.append(frac);
+    }
+
+    // --- segments ---
+
+    private abstract static class Segment {
+        // number is the value of the enclosing plural ('#'), 0 outside one
+        abstract void append(StringBuilder out, @Nullable Args args, double number);
+    }
+
+    private static final class Literal extends Segment {
+        final String text;
+
+        Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void append(StringBuilder out, Args args, double number) {
+            out.append(text);
+        }
+    }
+
+    private static final class Arg extends Segment {
+        final String name;
+        final int fractionDigits; // -1 = as given
+
+        Arg(String name, int fractionDigits) {
+            this.name = name;
+            this.fractionDigits = fractionDigits;
+        }
+
+        @Override
+        void append(StringBuilder out, Args args, double number) {
+            int i = args == null ? -1 : args.indexOf(name);
+            if (i < 0) {
+                out.append('{').append(name).append('}');
+            } else if (args.objects[i] != null || !args.numeric[i]) {
+                out.append(args.objects[i]);
+            } else {
+                appendNumber(out, args.numbers[i], fractionDigits);
+            }
+        }
+    }
+
+    private static final class PluralNumber extends Segment {
+        static final PluralNumber INSTANCE = new PluralNumber();
+
+        @Override
+        void append(StringBuilder out, Args args, double number) {
+            appendNumber(out, number, -1);
+        }
+    }
+
+    /**
+     * English plural rules: "=N" exact matches first, then "one" for 1, "zero" for 0, else "other".
+     */
+    private static final class Plural extends Segment {
+        final String name;
+        final double[] exactValues;
+        final Segment[][] exactForms;
+        final Segment[] zero;
+        final Segment[] one;
+        final Segment[] other;
+
+        private Plural(String name, double[] exactValues, Segment[][] exactForms, Segment[] zero, Segment[] one, Segment[] other) {
+            this.name = name;
+            this.exactValues = exactValues;
+            this.exactForms = exactForms;
+            this.zero = zero;
+            this.one = one;
+            this.other = other;
+        }
+
+        @Nullable
+        static Plural parse(String name, String p, int from, int to) {
+            List<Double> exactValues = new ArrayList<>();
+            List<Segment[]> exactForms = new ArrayList<>();
+            Segment[] zero = null, one = null, other = null;
+            int i = from;
+            while (i < to) {
+                while (i < to && Character.isWhitespace(p.charAt(i))) i++;
+                if (i >= to) break;
+                int open = p.indexOf('{', i);
+                if (open < 0 || open >= to) return null;
+                String selector = p.substring(i, open).trim();
+                int close = matchingBrace(p, open, to);
+                if (close < 0) return null;
+                Segment[] form = MessageTemplate.parse(p, open + 1, close, true);
+                if (selector.startsWith("=")) {
+                    try {
+                        exactValues.add(Double.parseDouble(selector.substring(1)));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    exactForms.add(form);
+                } else if (selector.equals("zero")) {
+                    zero = form;
+                } else if (selector.equals("one")) {
+                    one = form;
+                } else if (selector.equals("other")) {
+                    other = form;
+                } // other CLDR categories (two, few, many) do not apply to English
+                i = close + 1;
+            }
+            if (other == null) return null;
+            double[] values = new double[exactValues.size()];
+            for (int k = 0; k < values.length; k++) values[k] = exactValues.get(k);
+            return new Plural(name, values, exactForms.toArray(new Segment[0][]), zero, one, other);
+        }
+
+        @Override
+        void append(StringBuilder out, Args args, double number) {
+            int i = args == null ? -1 : args.indexOf(name);
+            if (i < 0 || !args.numeric[i]) {
+                out.append('{').append(name).append('}');
+                return;
+            }
+            double v = args.numbers[i];
+            Segment[] form = null;
+            for (int k = 0; k < exactValues.length; k++) {
+                if (exactValues[k] == v) {
+                    form = exactForms[k];
+                    break;
+                }
+            }
+            if (form == null) form = v == 1 && one != null ? one : v == 0 && zero != null ? zero : other;
+            for (Segment s : form) s.append(out, args, v);
+        }
+    }
+
+    /**
+     * Named arguments for render(...); clear() and refill one instance instead of allocating per message.
+     * Numbers are stored unboxed.
+     */
+    public static final class Args {
+        private String[] names = new String[4];
+        private Object[] objects = new Object[4];
+        private double[] numbers = new double[4];
+        private boolean[] numeric = new boolean[4];
+        private int size;
+
+        @Nonnull
+        public Args clear() {
+            for (int i = 0; i < size; i++) {
+                names[i] = null;
+                objects[i] = null;
+            }
+            size = 0;
+            return this;
+        }
+
+        @Nonnull
+        public Args put(@Nonnull String name, @Nullable Object value) {
+            int i = slot(name);
+            objects[i] = value;
+            numeric[i] = false;
+            return this;
+        }
+
+        @Nonnull
+        public Args put(@Nonnull String name, long value) {
+            return put(name, (double) value);
+        }
+
+        @Nonnull
+        public Args put(@Nonnull String name, double value) {
+            int i = slot(name);
+            objects[i] = null;
+            numbers[i] = value;
+            numeric[i] = true;
+            return this;
+        }
+
+        int indexOf(String name) {
+            for (int i = 0; i < size; i++) {
+                if (names[i] == name) return i;
+            }
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) return i;
+            }
+            return -1;
+        }
+
+        private int slot(String name) {
+            int i = indexOf(name);
+            if (i >= 0) return i;
+            if (size == names.length) {
+                int n = size * 2;
+                names = Arrays.copyOf(names, n);
+                objects = Arrays.copyOf(objects, n);
+                numbers = Arrays.copyOf(numbers, n);
+                numeric = Arrays.copyOf(numeric, n);
+            }
+            names[size] = name;
+            return size++;
+        }
+    }
+}
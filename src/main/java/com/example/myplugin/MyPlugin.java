@@ -1,12 +1,18 @@
 package com.example.myplugin;
 
+import com.example.myplugin.command.LangStatsCommand;
+import com.example.myplugin.command.LifestealStatsCommand;
 import com.example.myplugin.command.ReloadLifestealCommand;
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 
 import javax.annotation.Nonnull;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MyPlugin (updated) — registers reload command and populates lifesteal on setup.
@@ -33,25 +39,70 @@ public class MyPlugin extends JavaPlugin {
         // registerSystems();
         // registerEvents();
 
+        // config.json in the data directory (created from the bundled defaults); edits apply without a restart
+        PluginConfig.addListener(MyPlugin::applyConfig);
+        Path configFile = getDataDirectory().resolve("config.json");
+        PluginConfig.load(configFile);
+        PluginConfig.watch(configFile);
+
         // Register the reload lifesteal command
         getCommandRegistry().registerCommand(new ReloadLifestealCommand());
+        getCommandRegistry().registerCommand(new LifestealStatsCommand());
+        getCommandRegistry().registerCommand(new LangStatsCommand());
+
+        // Translations load per locale on first use; files in <data>/langfiles override the bundled ones
+        LangBundles.setRoot(getDataDirectory().resolve("langfiles"));
+
+        // Heal journal segments for balance audits ("lifestealJournal"; export with LifestealJournalExport)
+        LifestealJournal.setDirectory(getDataDirectory().resolve("journal"));
+
+        // Debug logging (async, "debugMode"), the periodic metrics dump ("metricsDumpMinutes"; also /lifestealstats)
+        // and the heal journal
+        applyConfig(null, PluginConfig.current());
 
         // Initialize DescriptionEditor (if your plugin uses it). Keep as in your repo or remove.
 
 
+        // Keep lifesteal in sync with asset (re)loads: only changed / removed items are reprocessed.
+        getEventRegistry().register(LoadedAssetsEvent.class, Item.class, AssetLifestealLoader::onItemAssetsLoaded);
+        getEventRegistry().register(RemovedAssetsEvent.class, Item.class, AssetLifestealLoader::onItemAssetsRemoved);
+
         // Populate lifesteal mapping now (assets should be loaded by the time plugin setup runs in most setups).
         // If assets are not yet available at this point in your server lifecycle, call AssetLifestealLoader.populateFromAssets()
         // later (e.g. on a post-asset-load event) or use the /reloadlifesteal command.
+        // Warm starts load the persisted index from the data directory when the asset set is unchanged.
+        // Default lifesteal rules (category / id patterns); editable copy lives in the data directory.
+        LifestealRules.setFile(getDataDirectory().resolve("lifesteal_rules.json"));
+        LifestealRules.reload();
+        AssetLifestealLoader.setIndexFile(getDataDirectory().resolve("lifesteal.idx"));
         try {
-            AssetLifestealLoader.populateFromAssets();
+            AssetLifestealLoader.loadFromIndexOrAssets();
         } catch (Throwable t) {
             System.out.println("[MyPlugin] warning: initial lifesteal population failed; use /reloadlifesteal after server finished loading assets.");
             t.printStackTrace();
         }
+        // Live per-item overrides on top of the asset values; edits are applied as a diff by the watcher thread
+        LifestealOverrides.setFile(getDataDirectory().resolve("lifesteal_overrides.json"));
+        LifestealOverrides.reload();
+        LifestealOverrides.watch();
 
         System.out.println("MyPlugin setup complete!");
     }
 
+    // Settings that are pushed into their subsystem rather than read from PluginConfig.current() on use
+    private static void applyConfig(PluginConfig previous, PluginConfig next) {
+        if (previous == null || previous.isDebugMode() != next.isDebugMode()) {
+            LifestealDebugLog.setEnabled(next.isDebugMode());
+        }
+        if (previous == null || previous.getMetricsDumpMinutes() != next.getMetricsDumpMinutes()) {
+            if (next.getMetricsDumpMinutes() > 0) LifestealMetrics.startPeriodicDump(next.getMetricsDumpMinutes(), TimeUnit.MINUTES);
+            else LifestealMetrics.shutdown();
+        }
+        if (previous == null || !previous.getJournal().equals(next.getJournal())) {
+            LifestealJournal.configure(next.getJournal());
+        }
+    }
+
     @Override
     protected void start() {
         System.out.println("MyPlugin started!");
@@ -60,5 +111,11 @@ public class MyPlugin extends JavaPlugin {
     @Override
     protected void shutdown() {
         System.out.println("MyPlugin shutting down!");
+        PluginConfig.shutdown();
+        LifestealOverrides.shutdown();
+        AssetLifestealLoader.shutdown();
+        LifestealMetrics.shutdown();
+        LifestealDebugLog.shutdown();
+        LifestealJournal.shutdown();
     }
 }
\ No newline at end of file
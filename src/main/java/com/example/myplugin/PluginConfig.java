@@ -0,0 +1,265 @@
+package com.example.myplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Typed, immutable view of config.json.
+ *
+ * - The bundled config.json supplies the defaults and is copied to the plugin data directory on
+ *   first start; load(...) parses that copy with Gson, validates it and publishes a new snapshot.
+ *   A file that fails to parse or validate is logged and the previous snapshot stays in effect.
+ * - current() is a single volatile read; hot paths read their settings from the returned
+ *   snapshot instead of caching them.
+ * - watch(...) follows the file with a WatchService on a daemon thread. Editors write a file in
+ *   several steps, so a reload waits until the file has been quiet for a moment (FileWatcher).
+ * - Listeners run after each publish with the previous and the new snapshot, on the thread that
+ *   loaded it (setup thread or the watcher thread).
+ */
+public final class PluginConfig {
+    private static final String RESOURCE = "config.json";
+
+    private static final PluginConfig DEFAULTS = new PluginConfig(new Raw());
+    private static volatile PluginConfig current = loadBundled();
+    private static final List<BiConsumer<PluginConfig, PluginConfig>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static volatile Path file;
+    private static FileWatcher watcher;
+
+    private final String pluginName;
+    private final String version;
+    private final boolean debugMode;
+    private final long metricsDumpMinutes;
+    private final HealRateLimiter.Settings healCap;
+    private final LifestealJournal.Settings journal;
+
+    private PluginConfig(Raw raw) {
+        this.pluginName = raw.pluginName == null ? "" : raw.pluginName;
+        this.version = raw.version == null ? "" : raw.version;
+        this.debugMode = raw.debugMode != null && raw.debugMode;
+        this.metricsDumpMinutes = raw.metricsDumpMinutes == null ? 5 : raw.metricsDumpMinutes;
+        Raw.Cap cap = raw.lifestealCap;
+        this.healCap = cap == null ? HealRateLimiter.Settings.DISABLED
+                : new HealRateLimiter.Settings(cap.maxHeal == null ? 0f : cap.maxHeal, cap.windowMs == null ? 1000L : cap.windowMs);
+        Raw.Journal j = raw.lifestealJournal;
+        LifestealJournal.Settings off = LifestealJournal.Settings.DISABLED;
+        this.journal = j == null ? off
+                : new LifestealJournal.Settings(j.enabled != null && j.enabled,
+                        j.segmentRecords == null ? off.getSegmentRecords() : j.segmentRecords,
+                        j.compress == null ? off.isCompress() : j.compress);
+    }
+
+    private PluginConfig(PluginConfig base, HealRateLimiter.Settings healCap) {
+        this.pluginName = base.pluginName;
+        this.version = base.version;
+        this.debugMode = base.debugMode;
+        this.metricsDumpMinutes = base.metricsDumpMinutes;
+        this.healCap = healCap;
+        this.journal = base.journal;
+    }
+
+    /**
+     * Snapshot in effect right now.
+     */
+    @Nonnull
+    public static PluginConfig current() {
+        return current;
+    }
+
+    /**
+     * Called with (previous, next) after every successful load.
+     */
+    public static void addListener(@Nonnull BiConsumer<PluginConfig, PluginConfig> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Load the config file (creating it from the bundled defaults if missing) and publish it.
+     */
+    public static synchronized boolean load(@Nonnull Path configFile) {
+        file = configFile;
+        try {
+            if (!Files.exists(configFile)) writeBundledCopy(configFile);
+            PluginConfig loaded;
+            try (Reader in = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+                loaded = parse(in);
+            }
+            publish(loaded);
+            System.out.println("[PluginConfig] loaded " + configFile + ": " + loaded);
+            return true;
+        } catch (Throwable t) {
+            System.out.println("[PluginConfig] could not load " + configFile + ", keeping the previous config: " + t.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reload the file whenever it changes, until shutdown(). Replaces a running watcher.
+     */
+    public static synchronized void watch(@Nonnull Path configFile) {
+        shutdown();
+        file = configFile;
+        watcher = FileWatcher.start(configFile, "Lifesteal-ConfigWatch", () -> {
+            Path f = file;
+            if (f != null) load(f);
+        });
+    }
+
+    public static synchronized void shutdown() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Publish a snapshot and notify listeners. Package-private for the jmh benchmarks.
+     */
+    static void publish(@Nonnull PluginConfig next) {
+        PluginConfig previous = current;
+        current = next;
+        for (BiConsumer<PluginConfig, PluginConfig> l : LISTENERS) {
+            try {
+                l.accept(previous, next);
+            } catch (Throwable t) {
+                System.out.println("[PluginConfig] config listener failed:");
+                t.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Parse and validate; throws IllegalArgumentException listing every problem.
+     */
+    @Nonnull
+    static PluginConfig parse(@Nonnull Reader in) {
+        Raw raw;
+        try {
+            raw = new Gson().fromJson(in, Raw.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("invalid JSON: " + e.getMessage(), e);
+        }
+        if (raw == null) throw new IllegalArgumentException("empty file");
+        List<String> problems = new ArrayList<>();
+        if (raw.metricsDumpMinutes != null && raw.metricsDumpMinutes < 0) problems.add("metricsDumpMinutes must be >= 0");
+        if (raw.lifestealCap != null) {
+            if (raw.lifestealCap.maxHeal != null && !(raw.lifestealCap.maxHeal >= 0f)) problems.add("lifestealCap.maxHeal must be >= 0");
+            if (raw.lifestealCap.windowMs != null && raw.lifestealCap.windowMs <= 0) problems.add("lifestealCap.windowMs must be > 0");
+        }
+        if (raw.lifestealJournal != null && raw.lifestealJournal.segmentRecords != null) {
+            int n = raw.lifestealJournal.segmentRecords;
+            if (n <= 0 || n > LifestealJournal.MAX_SEGMENT_RECORDS) {
+                problems.add("lifestealJournal.segmentRecords must be between 1 and " + LifestealJournal.MAX_SEGMENT_RECORDS);
+            }
+        }
+        if (!problems.isEmpty()) throw new IllegalArgumentException(String.join("; ", problems));
+        return new PluginConfig(raw);
+    }
+
+    private static PluginConfig loadBundled() {
+        try (InputStream in = PluginConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) return DEFAULTS;
+            return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (Throwable t) {
+            System.out.println("[PluginConfig] could not read bundled " + RESOURCE + ": " + t);
+            return DEFAULTS;
+        }
+    }
+
+    private static void writeBundledCopy(Path target) throws IOException {
+        try (InputStream in = PluginConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) return;
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Files.copy(in, target);
+        }
+    }
+
+    /**
+     * Copy of this snapshot with another heal cap (benchmarks).
+     */
+    @Nonnull
+    PluginConfig withHealCap(@Nonnull HealRateLimiter.Settings cap) {
+        return new PluginConfig(this, cap);
+    }
+
+    @Nonnull
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    @Nonnull
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Asynchronous debug output from the damage handler (LifestealDebugLog).
+     */
+    public boolean isDebugMode() {
+        return debugMode;
+    }
+
+    /**
+     * Period of the LifestealMetrics log dump; 0 turns it off.
+     */
+    public long getMetricsDumpMinutes() {
+        return metricsDumpMinutes;
+    }
+
+    /**
+     * Per-attacker lifesteal cap (HealRateLimiter).
+     */
+    @Nonnull
+    public HealRateLimiter.Settings getHealCap() {
+        return healCap;
+    }
+
+    /**
+     * Binary heal journal (LifestealJournal).
+     */
+    @Nonnull
+    public LifestealJournal.Settings getJournal() {
+        return journal;
+    }
+
+    @Override
+    public String toString() {
+        return "debugMode=" + debugMode + ", metricsDumpMinutes=" + metricsDumpMinutes + ", lifestealCap=" + healCap
+                + ", lifestealJournal=" + journal;
+    }
+
+    // Gson target; boxed fields so a missing entry can be told from an explicit value
+    private static final class Raw {
+        @Nullable String pluginName;
+        @Nullable String version;
+        @Nullable Boolean debugMode;
+        @Nullable Long metricsDumpMinutes;
+        @Nullable Cap lifestealCap;
+        @Nullable Journal lifestealJournal;
+
+        private static final class Cap {
+            @Nullable Float maxHeal;
+            @Nullable Long windowMs;
+        }
+
+        private static final class Journal {
+            @Nullable Boolean enabled;
+            @Nullable Integer segmentRecords;
+            @Nullable Boolean compress;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.myplugin;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Shared helpers for turning probed getters / fields into MethodHandles of type (Object)Object.
+ * Used by the per-class caches in HeldItemResolver and AssetLifestealLoader.
+ */
+final class ReflectiveAccessors {
+    static final MethodHandle[] NONE = new MethodHandle[0];
+    static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private ReflectiveAccessors() {}
+
+    /**
+     * Zero-arg method as an (Object)Object handle, or null if it cannot be accessed.
+     */
+    @Nullable
+    static MethodHandle getter(Method m) {
+        MethodHandle h;
+        try {
+            h = MethodHandles.publicLookup().unreflect(m);
+        } catch (IllegalAccessException notPublic) {
+            // public method declared on a non-public class
+            try {
+                if (!m.trySetAccessible()) return null;
+                h = MethodHandles.lookup().unreflect(m);
+            } catch (Throwable ignored) {
+                return null;
+            }
+        }
+        return adapt(h, Modifier.isStatic(m.getModifiers()));
+    }
+
+    /**
+     * Field read as an (Object)Object handle, or null if it cannot be accessed.
+     */
+    @Nullable
+    static MethodHandle getter(Field f) {
+        MethodHandle h;
+        try {
+            h = MethodHandles.publicLookup().unreflectGetter(f);
+        } catch (IllegalAccessException notPublic) {
+            try {
+                if (!f.trySetAccessible()) return null;
+                h = MethodHandles.lookup().unreflectGetter(f);
+            } catch (Throwable ignored) {
+                return null;
+            }
+        }
+        return adapt(h, Modifier.isStatic(f.getModifiers()));
+    }
+
+    // static members ignore the receiver, like Method.invoke / Field.get do
+    private static MethodHandle adapt(MethodHandle h, boolean isStatic) {
+        if (isStatic) h = MethodHandles.dropArguments(h, 0, Object.class);
+        return h.asType(GETTER_TYPE);
+    }
+
+    static MethodHandle[] trim(MethodHandle[] handles, int count) {
+        if (count == 0) return NONE;
+        if (count == handles.length) return handles;
+        MethodHandle[] out = new MethodHandle[count];
+        System.arraycopy(handles, 0, out, 0, count);
+        return out;
+    }
+}
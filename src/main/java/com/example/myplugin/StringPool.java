@@ -0,0 +1,92 @@
+package com.example.myplugin;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Canonical String instances shared by every loaded language bundle.
+ *
+ * - Open-addressing set (one String[] slot per entry, at most half full) instead of a HashMap, so
+ *   the pool itself costs about 8 bytes per distinct string.
+ * - Locales mostly repeat the en-US keys and many untranslated values; each distinct string is
+ *   kept once however many bundles use it.
+ * - intern(...) reports the size of strings it adds so callers can attribute memory to a locale.
+ * - Only used while bundles load (not on a hot path); synchronized.
+ */
+final class StringPool {
+    private String[] table = new String[1024]; // power of two
+    private int size;
+    private long bytes;
+
+    /**
+     * Canonical instance equal to s. owner (nullable) receives the estimated size when s is new.
+     */
+    @Nonnull
+    synchronized String intern(@Nonnull String s, long[] owner) {
+        int mask = table.length - 1;
+        int i = spread(s.hashCode()) & mask;
+        for (String e; (e = table[i]) != null; i = (i + 1) & mask) {
+            if (e.equals(s)) return e;
+        }
+        table[i] = s;
+        long sz = sizeOf(s);
+        bytes += sz;
+        if (owner != null) owner[0] += sz;
+        if (++size * 2 > table.length) rehash();
+        return s;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Estimated bytes of all pooled strings.
+     */
+    synchronized long stringBytes() {
+        return bytes;
+    }
+
+    /**
+     * Estimated bytes of the pool's own table.
+     */
+    synchronized long tableBytes() {
+        return 16L + 4L * table.length;
+    }
+
+    private void rehash() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (String e : old) {
+            if (e == null) continue;
+            int i = spread(e.hashCode()) & mask;
+            while (table[i] != null) i = (i + 1) & mask;
+            table[i] = e;
+        }
+    }
+
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Heap estimate for a String with compressed oops and compact strings: object header and fields
+     * plus the backing byte[] (one byte per char for Latin-1 text, two otherwise), 8-byte aligned.
+     */
+    static long sizeOf(@Nonnull String s) {
+        boolean latin1 = true;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (s.charAt(i) > 0xFF) {
+                latin1 = false;
+                break;
+            }
+        }
+        long array = align(16L + (latin1 ? s.length() : 2L * s.length()));
+        return 24L + array;
+    }
+
+    static long align(long n) {
+        return (n + 7) & ~7L;
+    }
+}
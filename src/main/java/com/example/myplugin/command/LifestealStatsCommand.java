@@ -0,0 +1,36 @@
+package com.example.myplugin.command;
+
+import com.example.myplugin.LifestealMetrics;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * /lifestealstats - show lifesteal outcome counts, healed totals and latency percentiles since startup.
+ */
+public class LifestealStatsCommand extends AbstractPlayerCommand {
+    public LifestealStatsCommand() {
+        super("lifestealstats", "Show lifesteal hit rates and latency");
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext context,
+                           @Nonnull Store<EntityStore> store,
+                           @Nonnull Ref<EntityStore> ref,
+                           @Nonnull PlayerRef playerRef,
+                           @Nonnull World world) {
+        Player playerComponent = (Player) store.getComponent(ref, Player.getComponentType());
+        if (playerComponent == null) return;
+        for (String line : LifestealMetrics.report()) {
+            playerComponent.sendMessage(Message.raw(line));
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.myplugin.command;
 
 import com.example.myplugin.AssetLifestealLoader;
+import com.example.myplugin.LangBundles;
+import com.example.myplugin.MessageTemplate;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
@@ -13,6 +17,10 @@ import javax.annotation.Nonnull;
 
 /**
  * /reloadlifesteal - command to re-scan item assets and update runtime lifesteal values.
+ *
+ * The scan runs on the loader thread (AssetLifestealLoader.reloadAsync()), so the world keeps ticking;
+ * the player is told the result back on the world thread. Requests made while a reload is running share it.
+ * Result texts are the lifesteal.commands.reloadlifesteal.* lang entries in the player's language.
  */
 public class ReloadLifestealCommand extends AbstractPlayerCommand {
     public ReloadLifestealCommand() {
@@ -25,11 +33,25 @@ public class ReloadLifestealCommand extends AbstractPlayerCommand {
                            @Nonnull Ref<EntityStore> ref,
                            @Nonnull PlayerRef playerRef,
                            @Nonnull World world) {
-        AssetLifestealLoader.populateFromAssets();
-        com.hypixel.hytale.server.core.entity.entities.Player playerComponent =
-                (com.hypixel.hytale.server.core.entity.entities.Player) store.getComponent(ref, com.hypixel.hytale.server.core.entity.entities.Player.getComponentType());
-        if (playerComponent != null) {
-            playerComponent.sendMessage(com.hypixel.hytale.server.core.Message.raw("Reloaded lifesteal values from assets (see server log)."));
-        }
+        String language = playerRef.getLanguage();
+        AssetLifestealLoader.reloadAsync().whenComplete((result, error) -> {
+            Message message;
+            if (error != null || result == null || !result.isSuccess()) {
+                message = LangBundles.template(language, "lifesteal.commands.reloadlifesteal.failed").toMessage(null);
+            } else {
+                MessageTemplate.Args args = new MessageTemplate.Args()
+                        .put("items", result.getItemsWithLifesteal())
+                        .put("scanned", result.getItemsScanned())
+                        .put("ms", result.getElapsedNanos() / 1_000_000.0);
+                message = LangBundles.template(language, "lifesteal.commands.reloadlifesteal.done").toMessage(args);
+            }
+            world.execute(() -> {
+                if (!ref.isValid()) return;
+                Player playerComponent = (Player) store.getComponent(ref, Player.getComponentType());
+                if (playerComponent != null) {
+                    playerComponent.sendMessage(message);
+                }
+            });
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Allocation regression test for the damage path: every LifestealOnDamage outcome runs many times
+ * after warmup and must allocate 0 bytes (within TOLERANCE_BYTES). Part of ./gradlew test.
+ *
+ * - Bytes are read from com.sun.management.ThreadMXBean for this thread, minus what an empty loop
+ *   reports, so a result is exact rather than a sampled rate.
+ * - Paths are driven the same way as LifestealHandleBenchmark (early exits through handle(...),
+ *   the rest through refresh(...) / applyLifesteal(...) on BenchStandIns entities), plus a whole
+ *   tick: hits from many attackers into one CommandBuffer and the HealBatch drain at its end.
+ * - The debug log is off: with debugMode on, records are allowed to allocate. The heal journal
+ *   writes to a temporary directory and is closed again (not shut down) afterwards.
+ * - Global state the test touches (debug flag, registry entry and index, heal-cap config) is put
+ *   back in tearDown(), so later tests in the same JVM see what they would have seen without it.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HandleAllocationTest {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int WARMUP_OPS = 100_000;
+    private static final int MEASURED_OPS = 1_000_000;
+    // the journal records one entry per op; its runs are shorter so every record fits in one small segment
+    private static final int JOURNAL_WARMUP_OPS = 10_000;
+    private static final int JOURNAL_MEASURED_OPS = 100_000;
+    private static final int JOURNAL_SEGMENT_RECORDS = 1 << 18; // 8 MiB, plus an 8 MiB spare
+    private static final long JOURNAL_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // slack for the odd TLAB refill or LongAdder cell that a steady state does not repeat
+    private static final long TOLERANCE_BYTES = 256;
+
+    private static final int ATTACKERS = 64;
+    private static final int HITS_PER_TICK = 256;
+    private static final String DAGGER_ID = "items/bench_dagger";
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final LifestealSystems.LifestealOnDamage system = new LifestealSystems.LifestealOnDamage();
+    @SuppressWarnings("unchecked")
+    private final Ref<EntityStore>[] refs = (Ref<EntityStore>[]) new Ref<?>[ATTACKERS];
+    private final LifestealComponent[] daggers = new LifestealComponent[ATTACKERS];
+    private final HealRateLimiter limiter = new HealRateLimiter();
+    private final HealBatch.Sink discard = (ref, amount) -> {};
+    // the engine's buffers are pooled by the Store; two stand-ins that swallow run(...) do the same here
+    private final CommandBuffer<EntityStore>[] buffers = newBuffers();
+    private long sink;
+
+    private PluginConfig previousConfig;
+    private boolean previousDebug;
+    private Double previousDaggerLifesteal;
+    private BenchStandIns.Attacker daggerAttacker;
+    private BenchStandIns.Attacker unindexedAttacker;
+    private LifestealComponent plain;
+    private LifestealComponent emptyHanded;
+    private final LifestealComponent scratch = new LifestealComponent();
+
+    @BeforeAll
+    void setUp() {
+        previousDebug = LifestealDebugLog.enabled;
+        previousDaggerLifesteal = LifestealRegistry.getItemLifesteal(DAGGER_ID);
+        LifestealDebugLog.setEnabled(false);
+        BenchStandIns.LifestealItem dagger = new BenchStandIns.LifestealItem(DAGGER_ID, 0.12);
+        BenchStandIns.BenchItem sword = new BenchStandIns.BenchItem("items/bench_sword", new String[] { "Sword" });
+        BenchStandIns.BenchItem unindexed = new BenchStandIns.BenchItem("items/Bench_Unindexed_Dagger", new String[] { "Sword" });
+        LifestealRegistry.setItemLifesteal(dagger.getId(), 0.12);
+        ItemLifestealIndex.refresh();
+        // a 1 ms window slides thousands of times during warmup, so no branch of admit(...) is first taken while measuring
+        previousConfig = PluginConfig.current();
+        PluginConfig.publish(previousConfig.withHealCap(new HealRateLimiter.Settings(20f, 1L)));
+
+        daggerAttacker = new BenchStandIns.Attacker(new BenchStandIns.BenchItemStack(dagger));
+        unindexedAttacker = new BenchStandIns.Attacker(new BenchStandIns.BenchItemStack(unindexed));
+        for (int i = 0; i < ATTACKERS; i++) {
+            refs[i] = BenchStandIns.ref(i);
+            daggers[i] = resolved(daggerAttacker);
+        }
+        plain = resolved(new BenchStandIns.Attacker(new BenchStandIns.BenchItemStack(sword)));
+        emptyHanded = resolved(new BenchStandIns.Attacker(null));
+    }
+
+    @AfterAll
+    void tearDown() {
+        PluginConfig.publish(previousConfig);
+        if (previousDaggerLifesteal != null) LifestealRegistry.setItemLifesteal(DAGGER_ID, previousDaggerLifesteal);
+        else LifestealRegistry.update(Map.of(), Set.of(DAGGER_ID));
+        ItemLifestealIndex.refresh();
+        LifestealDebugLog.setEnabled(previousDebug);
+    }
+
+    @Test
+    void cancelledDamageDoesNotAllocate() {
+        Damage cancelled = new Damage(new Damage.EntitySource(BenchStandIns.ref(1)), 0, 10f);
+        cancelled.setCancelled(true);
+        assertNoAllocation("handle: cancelled", i -> system.handle(0, null, null, buffers[0], cancelled));
+    }
+
+    @Test
+    void zeroDamageDoesNotAllocate() {
+        Damage zeroDamage = new Damage(new Damage.EntitySource(BenchStandIns.ref(1)), 0, 0f);
+        assertNoAllocation("handle: zero damage", i -> system.handle(0, null, null, buffers[0], zeroDamage));
+    }
+
+    @Test
+    void environmentalSourceDoesNotAllocate() {
+        Damage environmental = new Damage(new Damage.EnvironmentSource("check"), 0, 10f);
+        assertNoAllocation("handle: not an entity source", i -> system.handle(0, null, null, buffers[0], environmental));
+    }
+
+    @Test
+    void invalidAttackerRefDoesNotAllocate() {
+        Damage invalidRef = new Damage(new Damage.EntitySource(new Ref<>(BenchStandIns.STORE)), 0, 10f);
+        assertNoAllocation("handle: invalid ref", i -> system.handle(0, null, null, buffers[0], invalidRef));
+    }
+
+    @Test
+    void projectileWithoutOwnerDoesNotAllocate() {
+        Damage invalidShooter = new Damage(new Damage.ProjectileSource(new Ref<>(BenchStandIns.STORE), BenchStandIns.ref(1)), 0, 10f);
+        assertNoAllocation("handle: projectile, no owner", i -> system.handle(0, null, null, buffers[0], invalidShooter));
+    }
+
+    @Test
+    void noHeldItemDoesNotAllocate() {
+        assertNoAllocation("no held item", i -> LifestealSystems.LifestealOnDamage.applyLifesteal(buffers[0], refs[0], emptyHanded, 10f, null));
+    }
+
+    @Test
+    void zeroLifestealDoesNotAllocate() {
+        assertNoAllocation("zero lifesteal", i -> LifestealSystems.LifestealOnDamage.applyLifesteal(buffers[0], refs[0], plain, 10f, null));
+    }
+
+    @Test
+    void refreshFromIndexDoesNotAllocate() {
+        assertNoAllocation("refresh: indexed item", i -> LifestealSystems.LifestealOnDamage.refresh(scratch, daggerAttacker));
+    }
+
+    @Test
+    void refreshFromRulesDoesNotAllocate() {
+        assertNoAllocation("refresh: rules fallback", i -> LifestealSystems.LifestealOnDamage.refresh(scratch, unindexedAttacker));
+    }
+
+    @Test
+    void appliedTickDoesNotAllocate() {
+        assertNoAllocation("tick: applied", i -> tick(i, null));
+    }
+
+    @Test
+    void appliedTickWithHealCapDoesNotAllocate() {
+        assertNoAllocation("tick: applied with heal cap", i -> tick(i, limiter));
+    }
+
+    // a segment large enough that no rollover (and its one-off allocation) falls into the run; the
+    // journal is only closed afterwards, shutdown() would stop its thread for the rest of the JVM
+    @Test
+    void journalRecordDoesNotAllocate(@TempDir Path dir) {
+        LifestealJournal.setDirectory(dir);
+        LifestealJournal.configure(new LifestealJournal.Settings(true, JOURNAL_SEGMENT_RECORDS, false));
+        try {
+            awaitJournal(true, dir);
+            String itemId = daggers[0].getItemId();
+            assertNoAllocation("journal: record", i -> LifestealJournal.record(i, i & (ATTACKERS - 1), itemId, 10f, 0.12f, 1.2f),
+                    JOURNAL_WARMUP_OPS, JOURNAL_MEASURED_OPS);
+        } finally {
+            LifestealJournal.configure(LifestealJournal.Settings.DISABLED);
+            awaitJournal(false, dir);
+            LifestealJournal.setDirectory(null);
+        }
+    }
+
+    // the journal opens and closes on its own thread; a failed open only logs, so give up after a while
+    private static void awaitJournal(boolean open, Path dir) {
+        long deadline = System.nanoTime() + JOURNAL_TIMEOUT_NANOS;
+        while (LifestealJournal.isOpen() != open) {
+            if (System.nanoTime() - deadline > 0) fail("journal in " + dir + " did not " + (open ? "open" : "close") + " within 10 s");
+            Thread.onSpinWait();
+        }
+    }
+
+    // one op = one hit; every HITS_PER_TICK hits the tick ends and its HealBatch is drained
+    private void tick(int i, HealRateLimiter capped) {
+        CommandBuffer<EntityStore> buffer = buffers[(i / HITS_PER_TICK) & 1];
+        int a = i & (ATTACKERS - 1);
+        LifestealSystems.LifestealOnDamage.applyLifesteal(buffer, refs[a], daggers[a], 10f, capped);
+        if (i % HITS_PER_TICK == HITS_PER_TICK - 1) {
+            HealBatch batch = HealBatch.openFor(buffer);
+            if (batch != null) batch.drain(discard);
+        }
+    }
+
+    private void assertNoAllocation(String name, Op op) {
+        assertNoAllocation(name, op, WARMUP_OPS, MEASURED_OPS);
+    }
+
+    private void assertNoAllocation(String name, Op op, int warmupOps, int measuredOps) {
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            measure(op, warmupOps);
+            measure(EMPTY, warmupOps);
+        }
+        long bytes = Math.max(measure(op, measuredOps) - measure(EMPTY, measuredOps), 0);
+        assertTrue(bytes <= TOLERANCE_BYTES, () -> String.format("%s allocates: %d bytes over %d ops (%.4f B/op)",
+                name, bytes, measuredOps, bytes / (double) measuredOps));
+    }
+
+    private long measure(Op op, int ops) {
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ops; i++) op.run(i);
+        long after = threads.getCurrentThreadAllocatedBytes();
+        sink += after;
+        return after - before;
+    }
+
+    private static final Op EMPTY = i -> {};
+
+    private interface Op {
+        void run(int i);
+    }
+
+    private static LifestealComponent resolved(BenchStandIns.Attacker attacker) {
+        LifestealComponent component = new LifestealComponent();
+        LifestealSystems.LifestealOnDamage.refresh(component, attacker);
+        return component;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CommandBuffer<EntityStore>[] newBuffers() {
+        CommandBuffer<EntityStore>[] out = (CommandBuffer<EntityStore>[]) new CommandBuffer<?>[2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = new CommandBuffer<EntityStore>(null) {
+                @Override
+                public void run(Consumer<Store<EntityStore>> consumer) {
+                    // consumed by tick(...) through HealBatch.drain instead
+                }
+            };
+        }
+        return out;
+    }
+}
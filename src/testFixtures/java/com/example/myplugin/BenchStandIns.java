@@ -0,0 +1,137 @@
+package com.example.myplugin;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import sun.misc.Unsafe;
+
+/**
+ * Lightweight stand-ins for the engine types the benchmarks and tests need (test fixtures, shared
+ * by src/jmh and src/test).
+ *
+ * - Store cannot be constructed outside its package. Refs hash their store on construction, so
+ *   STORE is an uninitialised instance that is only ever used for its identity; handle(...) is
+ *   driven through the early exits only, and the resolve / applied paths go through
+ *   LifestealOnDamage.refresh(...) / applyLifesteal(...) with an attacker stand-in instead.
+ * - ItemStack / Item normally resolve through the server's asset store; the stand-ins set the
+ *   protected fields directly and return their Item without a lookup.
+ * - Attacker / Inventory expose the getters HeldItemResolver probes for.
+ */
+public final class BenchStandIns {
+    public static final Store<EntityStore> STORE = allocateStore();
+
+    private BenchStandIns() {}
+
+    public static CommandBuffer<EntityStore> commandBuffer() {
+        // run(...) only queues the consumer; nothing ever consumes it here
+        return new CommandBuffer<EntityStore>(null) {};
+    }
+
+    public static Ref<EntityStore> ref(int index) {
+        return new Ref<>(STORE, index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Store<EntityStore> allocateStore() {
+        try {
+            Field f = Unsafe.class.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            return (Store<EntityStore>) ((Unsafe) f.get(null)).allocateInstance(Store.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static String itemId(int i) {
+        return "items/bench_" + i;
+    }
+
+    /**
+     * count items, every other one carrying a lifesteal getter (0.05 .. 0.24).
+     */
+    public static List<Item> items(int count) {
+        List<Item> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add((i & 1) == 0 ? new LifestealItem(itemId(i), 0.05 + (i % 20) / 100.0) : new BenchItem(itemId(i), null));
+        }
+        return out;
+    }
+
+    /**
+     * Registry values matching items(count).
+     */
+    public static Map<String, Double> registryValues(int count) {
+        Map<String, Double> out = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i += 2) out.put(itemId(i), 0.05 + (i % 20) / 100.0);
+        return out;
+    }
+
+    public static class BenchItem extends Item {
+        public BenchItem(String id, String[] categories) {
+            super();
+            this.id = id;
+            this.categories = categories;
+        }
+    }
+
+    public static final class LifestealItem extends BenchItem {
+        private final double lifesteal;
+
+        public LifestealItem(String id, double lifesteal) {
+            super(id, null);
+            this.lifesteal = lifesteal;
+        }
+
+        public double getLifesteal() {
+            return lifesteal;
+        }
+    }
+
+    public static final class BenchItemStack extends ItemStack {
+        private final Item item;
+
+        public BenchItemStack(Item item) {
+            super();
+            this.itemId = item.getId();
+            this.item = item;
+        }
+
+        @Override
+        public Item getItem() {
+            return item;
+        }
+    }
+
+    public static final class Inventory {
+        private final ItemStack active;
+
+        public Inventory(ItemStack active) {
+            this.active = active;
+        }
+
+        public ItemStack getActiveHotbarItem() {
+            return active;
+        }
+    }
+
+    public static final class Attacker {
+        private final Inventory inventory;
+
+        public Attacker(ItemStack held) {
+            this.inventory = new Inventory(held);
+        }
+
+        public Inventory getInventory() {
+            return inventory;
+        }
+    }
+}